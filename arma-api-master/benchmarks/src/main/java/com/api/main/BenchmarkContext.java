@@ -0,0 +1,23 @@
+package com.api.main;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.stereotype.Component;
+
+/**
+ * Captures the application context started by {@link Executer#main(String[])} so {@link EndpointBenchmark} can shut it down again.
+ */
+@Component
+public class BenchmarkContext implements ApplicationContextAware {
+    private static ApplicationContext context;
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        context = applicationContext;
+    }
+
+    static ApplicationContext get() {
+        return context;
+    }
+}
@@ -0,0 +1,27 @@
+package com.api.main;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar. Takes the usual JMH options, but writes the results as JSON to {@code jmh-result.json} unless {@code -rf}/{@code -rff} say otherwise, so runs from different releases can be compared for regressions.
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions OPTIONS = new CommandLineOptions(args);
+        if (OPTIONS.shouldHelp() || OPTIONS.shouldList() || OPTIONS.shouldListWithParams() || OPTIONS.shouldListProfilers() || OPTIONS.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        new Runner(new OptionsBuilder()
+            .parent(OPTIONS)
+            .resultFormat(OPTIONS.getResultFormat().orElse(ResultFormatType.JSON))
+            .result(OPTIONS.getResult().orElse("jmh-result.json"))
+            .build()
+        ).run();
+    }
+}
@@ -0,0 +1,76 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The serialization path of the catalog cache over the bundled data: serializing every config with {@code Document.toJson}, building the sorted mod/type slices and their joined bodies on a reload, joining a slice body, and an uncached search.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogBenchmark {
+
+    @Param({"stanag", "30rnd 5.56", "bananna"})
+    public String term;
+
+    private Map<String, List<Document>> modContents;
+    private List<Document> configs;
+    private List<byte[]> serialized;
+    private SearchIndex searchIndex;
+
+    @Setup
+    public void setup() throws Exception {
+        modContents = Fixtures.modContents();
+        configs = new ArrayList<Document>();
+        modContents.values().forEach(configs::addAll);
+        serialized = new ArrayList<byte[]>();
+        configs.forEach(config -> serialized.add(config.toJson().getBytes()));
+        searchIndex = new SearchIndex(configs);
+    }
+
+    @Benchmark
+    public void serializeConfigs(Blackhole blackhole) {
+        for (Document config : configs) {
+            blackhole.consume(config.toJson());
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CatalogCache reloadCatalog() {
+        // Serializes, sorts and slices every config, then builds the search index
+        CatalogCache cache = new CatalogCache(16, 16);
+        cache.load(modContents);
+        return cache;
+    }
+
+    @Benchmark
+    public JsonBody joinBody() {
+        return JsonBody.ofArray(serialized);
+    }
+
+    @Benchmark
+    public int[] searchUncached() {
+        return searchIndex.search(term);
+    }
+}
@@ -0,0 +1,87 @@
+package com.api.main;
+
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+
+/**
+ * The {@code /classes} and {@code /classes/search} endpoints end to end over HTTP, against the application started with embedded storage so the bundled data files stand in for mongo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndpointBenchmark {
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private String baseUrl;
+
+    @Setup
+    public void setup() throws Exception {
+        final int PORT;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            PORT = socket.getLocalPort();
+        }
+        Executer.main(new String[] {
+            "--config.STORAGE=embedded",
+            "--config.SUPPORTED_MODS=vanilla,ace,3cb,rhs,niarms,tacvests,tryk,vsm,rksl,acre,projectopfor,immersioncigs",
+            "--config.LOGFILE_PATH=" + System.getProperty("java.io.tmpdir") + "/arma-api-benchmark.log",
+            "--server.port=" + PORT
+        });
+        // Per request logging would dominate the measurements
+        Logger.getLogger(Executer.class.getName()).setLevel(Level.WARNING);
+        baseUrl = "http://localhost:" + PORT;
+    }
+
+    @TearDown
+    public void tearDown() {
+        SpringApplication.exit(BenchmarkContext.get());
+    }
+
+    private int get(String path) throws Exception {
+        final HttpResponse<byte[]> RESPONSE = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (RESPONSE.statusCode() != 200) {
+            throw new IllegalStateException(path + " responded with " + RESPONSE.statusCode());
+        }
+        return RESPONSE.body().length;
+    }
+
+    @Benchmark
+    public int classesByModAndType() throws Exception {
+        return get("/classes/ace?type=Magazines");
+    }
+
+    @Benchmark
+    public int classesPage() throws Exception {
+        return get("/classes?page=3&size=50");
+    }
+
+    @Benchmark
+    public int classesAfter() throws Exception {
+        return get("/classes/vanilla?after=30Rnd_556x45_Stanag&size=50");
+    }
+
+    @Benchmark
+    public int search() throws Exception {
+        return get("/classes/search/stanag");
+    }
+}
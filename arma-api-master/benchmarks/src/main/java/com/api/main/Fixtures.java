@@ -0,0 +1,70 @@
+package com.api.main;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.bson.Document;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * The bundled {@code data/*.json} files the benchmarks are driven by.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * @return The contents of every bundled data file, keyed by file name
+     * @throws Exception If a data file cannot be read
+     */
+    static Map<String, byte[]> dataFiles() throws Exception {
+        final Map<String, byte[]> FILES = new LinkedHashMap<String, byte[]>();
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources(EmbeddedCatalogSource.DATA_FILES)) {
+            try (InputStream input = resource.getInputStream()) {
+                FILES.put(resource.getFilename(), input.readAllBytes());
+            }
+        }
+        return FILES;
+    }
+
+    /**
+     * Copies the bundled data files to a directory, for code that reads files from disk like the updater.
+     * @param directory Directory to copy the files to
+     * @return The copied files
+     * @throws Exception If a data file cannot be read or written
+     */
+    static List<Path> copyDataFiles(Path directory) throws Exception {
+        final List<Path> FILES = new ArrayList<Path>();
+        for (Map.Entry<String, byte[]> file : dataFiles().entrySet()) {
+            FILES.add(Files.write(directory.resolve(file.getKey()), file.getValue()));
+        }
+        return FILES;
+    }
+
+    /**
+     * @return Every config in the bundled data files, keyed by mod
+     * @throws Exception If a data file cannot be read or parsed
+     */
+    static Map<String, List<Document>> modContents() throws Exception {
+        final FanOutExecutor FAN_OUT = new FanOutExecutor(1);
+        try {
+            final EmbeddedCatalogSource SOURCE = new EmbeddedCatalogSource(new IngestionPipeline(FAN_OUT, 1000, 60000));
+            SOURCE.refresh();
+            final Map<String, List<Document>> MOD_CONTENTS = new LinkedHashMap<String, List<Document>>();
+            for (Map.Entry<String, Callable<List<Document>>> reader : SOURCE.readers().entrySet()) {
+                MOD_CONTENTS.put(reader.getKey(), reader.getValue().call());
+            }
+            return MOD_CONTENTS;
+        } finally {
+            FAN_OUT.shutdown();
+        }
+    }
+}
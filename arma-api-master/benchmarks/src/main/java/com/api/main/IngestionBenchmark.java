@@ -0,0 +1,66 @@
+package com.api.main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the updater's ingestion pipeline over the bundled data files, streaming and batching every config into a sink that discards them so mongo isn't measured.
+ * Divide the number of configs in the data files by the time per operation for docs/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IngestionBenchmark {
+
+    @Param({"1", "4"})
+    public int threads;
+
+    @Param({"1000"})
+    public int batchSize;
+
+    private Path directory;
+    private List<Path> files;
+    private FanOutExecutor fanOut;
+    private IngestionPipeline pipeline;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("ingestion-benchmark");
+        files = Fixtures.copyDataFiles(directory);
+        fanOut = new FanOutExecutor(threads);
+        pipeline = new IngestionPipeline(fanOut, batchSize, 60000);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fanOut.shutdown();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public FanOutExecutor.Result<IngestionPipeline.FileReport> ingest() {
+        return pipeline.ingest(files, (mod, batch) -> { });
+    }
+}
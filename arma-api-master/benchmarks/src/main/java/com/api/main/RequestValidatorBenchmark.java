@@ -0,0 +1,80 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Per request validation of the {@code /classes} and {@code /classes/search} parameters. Run with {@code -prof gc}, the {@code gc.alloc.rate.norm} of the validator benchmarks should be (near) zero for valid input, against the previous implementation kept here as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestValidatorBenchmark {
+    private static final String MODS = "vanilla,ace,3cb,rhs,niarms,tacvests,tryk,vsm,rksl,acre,projectopfor,immersioncigs";
+    private static final ArrayList<Character> LEGACY_SPECIAL_CHARS = new ArrayList<Character>(Arrays.asList('\'', '\"', '\\', ';', '{', '}', '$'));
+
+    private RequestValidator validator;
+    private String mod;
+    private String type;
+    private String term;
+
+    @Setup
+    public void setup() {
+        validator = new RequestValidator(Arrays.asList(MODS.split(",")), Config.getTypes(), Config.getSpecialChars());
+        // Fresh instances, as request parameters are never the interned values
+        mod = new String("rhs");
+        type = new String("Magazines");
+        term = new String("30Rnd_556x45_Stanag_Tracer_Yellow");
+    }
+
+    @Benchmark
+    public void validateClasses(Blackhole blackhole) throws Exception {
+        blackhole.consume(validator.mod(mod));
+        blackhole.consume(validator.type(type));
+    }
+
+    @Benchmark
+    public String escapeSearchTerm() {
+        return validator.escape(term);
+    }
+
+    @Benchmark
+    public void legacyValidateClasses(Blackhole blackhole) {
+        final String FILTERED_MOD = legacyEscape(mod);
+        final String FILTERED_TYPE = legacyEscape(type);
+        blackhole.consume(new ArrayList<String>(Arrays.asList(MODS.split(","))).contains(FILTERED_MOD));
+        blackhole.consume(Config.getTypes().contains(FILTERED_TYPE));
+    }
+
+    @Benchmark
+    public String legacyEscapeSearchTerm() {
+        return legacyEscape(term);
+    }
+
+    private static String legacyEscape(String unfilteredInput) {
+        String filteredInput = "";
+        for (int i = 0; i < unfilteredInput.length(); i++) {
+            char currentCharecter = unfilteredInput.charAt(i);
+            if (!LEGACY_SPECIAL_CHARS.contains(currentCharecter)) {
+                filteredInput += currentCharecter;
+            }
+        }
+        return filteredInput;
+    }
+}
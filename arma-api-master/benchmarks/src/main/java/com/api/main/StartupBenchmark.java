@@ -0,0 +1,73 @@
+package com.api.main;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time for an embedded node to become ready to serve, from its catalog source being refreshed to the catalog cache being loaded, in a JVM that hasn't run either before. Each fork measures a single cold start, so the score is the average over the forks.
+ * {@code embedded} parses the bundled data files and {@code snapshot} decodes a snapshot of them. The snapshot is written from the parsed data files before the measurement, which leaves the JSON parser warm but not the snapshot reader or the cache.
+ * Spring's own startup isn't included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class StartupBenchmark {
+
+    @Param({"embedded", "snapshot"})
+    public String source;
+
+    private Path directory;
+    private Path snapshot;
+    private FanOutExecutor fanOut;
+
+    @Setup
+    public void setup() throws Exception {
+        // The defaults of config.FAN_OUT_THREADS and config.INGEST_BATCH_SIZE
+        fanOut = new FanOutExecutor(12);
+        if (source.equals("snapshot")) {
+            directory = Files.createTempDirectory("startup-benchmark");
+            snapshot = directory.resolve("catalog.snapshot");
+            final List<Document> CONFIGS = new ArrayList<Document>();
+            Fixtures.modContents().values().forEach(CONFIGS::addAll);
+            CatalogSnapshot.write(CONFIGS, snapshot);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        fanOut.shutdown();
+        if (directory != null) {
+            Files.deleteIfExists(snapshot);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Benchmark
+    public CatalogCache start() throws Exception {
+        final CatalogSource SOURCE = source.equals("snapshot") ? new SnapshotCatalogSource(snapshot) : new EmbeddedCatalogSource(new IngestionPipeline(fanOut, 1000, 60000));
+        SOURCE.refresh();
+        final CatalogCache CATALOG = new CatalogCache(1024, 4096, 256);
+        CATALOG.reload(SOURCE, fanOut, 60000);
+        return CATALOG;
+    }
+}
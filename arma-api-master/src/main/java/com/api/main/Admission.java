@@ -0,0 +1,183 @@
+package com.api.main;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Decides whether a request to the {@code /classes} routes is served or turned away. Each client has a token bucket refilled at a fixed rate, and requests for every matching config at once (no page size) are limited to a number in flight across all clients, as they are the ones writing out the whole catalog.
+ * Turned away requests get a {@link RetryLaterException}, answered with a 429 when the client is over its rate or a 503 when too many full responses are being written.
+ */
+public class Admission {
+    // Buckets of idle clients are dropped once this many clients are tracked, a full bucket is the same as a new one so nothing is lost
+    private static final int MAX_TRACKED_CLIENTS = 10000;
+    // Active clients keep their buckets, so the sweep runs at most this often rather than on every request while over the limit
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long OVERLOADED_RETRY_SECONDS = 1;
+
+    /**
+     * Held by an admitted request until its response has been written.
+     */
+    @FunctionalInterface
+    public interface Ticket extends AutoCloseable {
+        Ticket NONE = () -> {};
+
+        @Override
+        void close();
+    }
+
+    private final int ratePerSecond;
+    private final int burst;
+    private final int maxFullScans;
+    private final int maxTrackedClients;
+    private final long sweepIntervalNanos;
+    private final AtomicLong nextSweep;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+    private final AtomicInteger fullScans = new AtomicInteger();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    /**
+     * @param ratePerSecond Requests each client can make per second, -1 to not rate limit clients
+     * @param burst Requests a client can make at once after being idle
+     * @param maxFullScans Full responses that can be written at the same time, -1 for no limit
+     * @throws IllegalArgumentException If the rate is 0, which would turn every request away
+     */
+    public Admission(int ratePerSecond, int burst, int maxFullScans) {
+        this(ratePerSecond, burst, maxFullScans, MAX_TRACKED_CLIENTS, SWEEP_INTERVAL_NANOS);
+    }
+
+    /**
+     * @param maxTrackedClients Clients tracked before the buckets of idle ones are dropped
+     * @param sweepIntervalNanos Minimum time between two sweeps of the buckets
+     */
+    Admission(int ratePerSecond, int burst, int maxFullScans, int maxTrackedClients, long sweepIntervalNanos) {
+        if (ratePerSecond == 0) {
+            throw new IllegalArgumentException("[ERROR] config.RATE_LIMIT_PER_SECOND can't be 0, use -1 to disable rate limiting");
+        }
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxFullScans = maxFullScans;
+        this.maxTrackedClients = maxTrackedClients;
+        this.sweepIntervalNanos = sweepIntervalNanos;
+        this.nextSweep = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * @param size The page size requested, null if none was given
+     * @return True if the request is for every matching config at once
+     */
+    public static boolean isFullScan(String size) {
+        return size == null || size.trim().equals("-1");
+    }
+
+    /**
+     * @param client Identifies the client, e.g. its address
+     * @param fullScan True if the request is for every matching config at once
+     * @return A ticket to close once the response has been written
+     * @throws RetryLaterException If the client is over its rate, or too many full responses are already being written
+     */
+    public Ticket admit(String client, boolean fullScan) throws RetryLaterException {
+        if (ratePerSecond >= 0) {
+            final long NOW = System.nanoTime();
+            if (buckets.size() > maxTrackedClients) {
+                sweep(NOW);
+            }
+            final long WAIT_NANOS = buckets.computeIfAbsent(client, key -> new Bucket(burst, NOW)).take(NOW);
+            if (WAIT_NANOS > 0) {
+                rateLimited.incrementAndGet();
+                final long RETRY_AFTER = Math.max(1, (long) Math.ceil(WAIT_NANOS / (double) TimeUnit.SECONDS.toNanos(1)));
+                throw new RetryLaterException(HttpStatus.TOO_MANY_REQUESTS, RETRY_AFTER, String.format("Too many requests, the limit is %d per second. Please retry after %d seconds", ratePerSecond, RETRY_AFTER));
+            }
+        }
+
+        if (!fullScan || maxFullScans < 0) {
+            return Ticket.NONE;
+        }
+        if (fullScans.incrementAndGet() > maxFullScans) {
+            fullScans.decrementAndGet();
+            shed.incrementAndGet();
+            throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE, OVERLOADED_RETRY_SECONDS, "Too many unpaged requests are being served, please retry shortly or request a page (size) instead");
+        }
+        return fullScans::decrementAndGet;
+    }
+
+    /**
+     * Drops the buckets of idle clients, unless another request has swept them within the sweep interval.
+     */
+    private void sweep(long now) {
+        final long SWEEP_AT = nextSweep.get();
+        if (now - SWEEP_AT >= 0 && nextSweep.compareAndSet(SWEEP_AT, now + sweepIntervalNanos)) {
+            buckets.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    /**
+     * @return The number of clients with a bucket
+     */
+    public int getTrackedClients() {
+        return buckets.size();
+    }
+
+    /**
+     * @return The number of full responses being written
+     */
+    public int getFullScans() {
+        return fullScans.get();
+    }
+
+    /**
+     * @return The number of requests turned away because their client was over its rate
+     */
+    public long getRateLimited() {
+        return rateLimited.get();
+    }
+
+    /**
+     * @return The number of requests turned away because too many full responses were being written
+     */
+    public long getShed() {
+        return shed.get();
+    }
+
+    /**
+     * The tokens of a single client, refilled lazily whenever the client makes a request.
+     */
+    private class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(double tokens, long now) {
+            this.tokens = tokens;
+            this.refilledAt = now;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise how long (in nanoseconds) until the next token is available
+         */
+        private synchronized long take(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            // Another request of the client may have refilled the bucket with a later time
+            if (now > refilledAt) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * (double) ratePerSecond / TimeUnit.SECONDS.toNanos(1));
+                refilledAt = now;
+            }
+        }
+    }
+}
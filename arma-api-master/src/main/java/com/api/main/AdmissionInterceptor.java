@@ -0,0 +1,43 @@
+package com.api.main;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs every request to the servlet {@code /classes} routes through the {@link Admission} control before it reaches {@link Executer}, and holds its ticket until the response has been written.
+ * Turned away requests are answered by the {@link GlobalExceptionHandler} like any other error of the routes. Clients are told apart by their address, set {@code server.forward-headers-strategy} when running behind a proxy (the env profile sets it for the Heroku router) or every client shares a single bucket.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionInterceptor implements HandlerInterceptor, WebMvcConfigurer {
+    private static final String TICKET = AdmissionInterceptor.class.getName() + ".TICKET";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this).addPathPatterns("/classes", "/classes/**");
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        final Admission ADMISSION = Executer.getAdmission();
+        if (ADMISSION != null) {
+            final boolean FULL_SCAN = request.getMethod().equals("GET") && Admission.isFullScan(request.getParameter("size"));
+            request.setAttribute(TICKET, ADMISSION.admit(request.getRemoteAddr(), FULL_SCAN));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        final Object TICKET_ATTRIBUTE = request.getAttribute(TICKET);
+        if (TICKET_ATTRIBUTE != null) {
+            ((Admission.Ticket) TICKET_ATTRIBUTE).close();
+        }
+    }
+}
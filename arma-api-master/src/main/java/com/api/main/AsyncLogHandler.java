@@ -0,0 +1,124 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Logging handler that never blocks the thread that logs. Records are put on a bounded ring buffer and a background writer hands them to the target handlers (e.g. the log file and the console) in batches, flushing once per batch.
+ * Messages are formatted by the targets on the writer thread, so parameterised records ({@code {0}}) cost nothing to format on the logging thread. If the buffer is full the record is dropped and counted rather than waiting for the disk, and the writer reports how many were dropped.
+ */
+public class AsyncLogHandler extends Handler {
+    private static final int BATCH_SIZE = 256;
+
+    private final BlockingQueue<LogRecord> buffer;
+    private final List<Handler> targets;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    /**
+     * @param capacity Maximum number of records waiting to be written before new ones are dropped
+     * @param targets Handlers to write the records to, only ever called from the writer thread
+     */
+    public AsyncLogHandler(int capacity, List<Handler> targets) {
+        this.buffer = new ArrayBlockingQueue<LogRecord>(capacity);
+        this.targets = List.copyOf(targets);
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a record to be written, or drops it if the buffer is full.
+     * @param record The record to write
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            return;
+        }
+        // Name the source after the logger, asking the record for its source would walk the stack to find the caller
+        record.setSourceClassName(record.getLoggerName());
+        if (!buffer.offer(record)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Does nothing, records are flushed after every batch by the writer.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Writes out every queued record, then closes the targets.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        targets.forEach(Handler::close);
+    }
+
+    private void drain() {
+        final List<LogRecord> BATCH = new ArrayList<LogRecord>(BATCH_SIZE);
+        long reported = 0;
+        while (!closed || !buffer.isEmpty()) {
+            try {
+                final LogRecord FIRST = buffer.poll(1, TimeUnit.SECONDS);
+                if (FIRST == null) {
+                    continue;
+                }
+                BATCH.add(FIRST);
+            } catch (InterruptedException e) {
+                // Interrupted by close, write whatever is left
+            }
+            buffer.drainTo(BATCH, BATCH_SIZE - BATCH.size());
+
+            final long DROPPED = dropped.get();
+            if (DROPPED > reported) {
+                final LogRecord WARNING = new LogRecord(Level.WARNING, "[WARNING] Log buffer was full, {0,number,#} records were dropped");
+                WARNING.setParameters(new Object[] {DROPPED - reported});
+                WARNING.setLoggerName(AsyncLogHandler.class.getName());
+                WARNING.setSourceClassName(AsyncLogHandler.class.getName());
+                BATCH.add(WARNING);
+                reported = DROPPED;
+            }
+
+            for (Handler target : targets) {
+                for (LogRecord record : BATCH) {
+                    target.publish(record);
+                }
+                target.flush();
+            }
+            BATCH.clear();
+        }
+    }
+
+    /**
+     * @return The number of records dropped because the buffer was full
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of records waiting to be written
+     */
+    public int getQueued() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,476 @@
+package com.api.main;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bson.Document;
+
+/**
+ * In-memory read-through cache of every config in the database, keyed by mod and type. The cache is filled at startup and rebuilt in the background after an update, so served requests never touch mongo.
+ * Each reload builds a complete new catalog and swaps it in with a single write, meaning readers always see either the old or the new catalog and never a partially loaded one.
+ * Every config is serialized once per reload, and the response bodies for each mod/type slice, search result and requested page are kept ready to be written out as is.
+ * Slices are sorted by class name (then mod), giving pages a stable order that keyset cursors can resume from.
+ * Filtered queries and their facet counts are answered from a columnar {@link FacetIndex} rebuilt with the catalog.
+ * Concurrent requests that miss the same cached search, query, projection or page are coalesced, so the result is only computed once however many requests arrive for it at the same time.
+ */
+public class CatalogCache {
+    private static Logger LOGGER = Logger.getLogger(CatalogCache.class.getName());
+    private static final String ALL = "";
+
+    private volatile Map<String, Map<String, CatalogSlice>> catalog = null;
+    private volatile SearchIndex searchIndex = null;
+    private volatile ClassIndex classIndex = ClassIndex.EMPTY;
+    private volatile FacetIndex facetIndex = FacetIndex.EMPTY;
+    private volatile Map<String, List<Document>> modContents = Collections.emptyMap();
+    private volatile Set<String> staleMods = Collections.emptySet();
+    private final Map<String, CatalogSlice> searchResults;
+    private final Map<String, FacetIndex.Result> queryResults;
+    private final Map<PageKey, JsonBody> pages;
+    private final Map<PageKey, CatalogSlice> projections;
+    private final SingleFlight<String, CatalogSlice> searchFlights = new SingleFlight<String, CatalogSlice>();
+    private final SingleFlight<String, FacetIndex.Result> queryFlights = new SingleFlight<String, FacetIndex.Result>();
+    private final SingleFlight<PageKey, JsonBody> pageFlights = new SingleFlight<PageKey, JsonBody>();
+    private final SingleFlight<PageKey, CatalogSlice> projectionFlights = new SingleFlight<PageKey, CatalogSlice>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param searchCacheSize Maximum number of search results to hold before the least recently used result is evicted
+     * @param pageCacheSize Maximum number of serialized pages to hold before the least recently used page is evicted
+     */
+    public CatalogCache(int searchCacheSize, int pageCacheSize) {
+        this(searchCacheSize, pageCacheSize, 256);
+    }
+
+    /**
+     * @param searchCacheSize Maximum number of search (and query) results to hold before the least recently used result is evicted
+     * @param pageCacheSize Maximum number of serialized pages to hold before the least recently used page is evicted
+     * @param projectionCacheSize Maximum number of projected slices to hold before the least recently used one is evicted
+     */
+    public CatalogCache(int searchCacheSize, int pageCacheSize, int projectionCacheSize) {
+        this.searchResults = boundedMap(searchCacheSize);
+        this.queryResults = boundedMap(searchCacheSize);
+        this.pages = boundedMap(pageCacheSize);
+        this.projections = boundedMap(projectionCacheSize);
+    }
+
+    /**
+     * Reads every mod in the source concurrently and atomically replaces the cached catalog with the result. Cached search results are dropped as they may refer to stale configs.
+     * Mods that couldn't be read before the deadline keep the configs from the previous reload and are reported by {@link #getStaleMods()} until a later reload succeeds.
+     * @param source Storage to read the configs from, e.g. the registry of mod collections
+     * @param fanOut Executor to read the mods with
+     * @param timeoutMillis Deadline for reading every mod
+     */
+    public void reload(CatalogSource source, FanOutExecutor fanOut, long timeoutMillis) {
+        final long START = System.currentTimeMillis();
+        final Map<String, Callable<List<Document>>> READERS = new LinkedHashMap<String, Callable<List<Document>>>();
+        source.readers().forEach((mod, reader) -> READERS.put(mod, () -> Telemetry.fetch(mod).recordCallable(reader)));
+        final FanOutExecutor.Result<List<Document>> RESULT = fanOut.run(READERS, timeoutMillis);
+
+        // Fall back to the previous contents of any mod that couldn't be read
+        final Map<String, List<Document>> MOD_CONTENTS = new HashMap<String, List<Document>>(RESULT.getCompleted());
+        final Set<String> STALE_MODS = new HashSet<String>();
+        RESULT.getFailed().forEach((mod, reason) -> {
+            LOGGER.log(Level.WARNING, String.format("[WARNING] Could not read mod %s (%s), keeping its previously loaded configs", mod, reason));
+            MOD_CONTENTS.put(mod, modContents.getOrDefault(mod, Collections.emptyList()));
+            STALE_MODS.add(mod);
+        });
+
+        load(MOD_CONTENTS);
+        staleMods = Collections.unmodifiableSet(STALE_MODS);
+        LOGGER.log(Level.INFO, String.format(
+            "[INFO] Catalog cache reloaded with %d configs from %d mods (%d stale) in %dms (search cache hits: %d, misses: %d)",
+            size(), MOD_CONTENTS.size(), STALE_MODS.size(), System.currentTimeMillis() - START, hits.get(), misses.get()
+        ));
+    }
+
+    /**
+     * Atomically replaces the cached catalog with the given configs and drops any cached search results and pages.
+     * @param modContents Configs keyed by the mod they belong to
+     */
+    public void load(Map<String, List<Document>> modContents) {
+        final Map<String, Map<String, CatalogSlice>> RELOADED = index(modContents);
+        final long INDEXED = System.nanoTime();
+        final SearchIndex RELOADED_INDEX = new SearchIndex(slice(RELOADED, ALL, ALL).getConfigs());
+        final long SEARCH_INDEXED = Telemetry.reloadStage("search-index", INDEXED);
+        final ClassIndex RELOADED_CLASSES = new ClassIndex(slice(RELOADED, ALL, ALL));
+        final long CLASSES_INDEXED = Telemetry.reloadStage("class-index", SEARCH_INDEXED);
+        final FacetIndex RELOADED_FACETS = new FacetIndex(slice(RELOADED, ALL, ALL));
+        Telemetry.reloadStage("facet-index", CLASSES_INDEXED);
+        synchronized (searchResults) {
+            this.modContents = modContents;
+            catalog = RELOADED;
+            searchIndex = RELOADED_INDEX;
+            classIndex = RELOADED_CLASSES;
+            facetIndex = RELOADED_FACETS;
+            searchResults.clear();
+            queryResults.clear();
+            pages.clear();
+            projections.clear();
+        }
+    }
+
+    /**
+     * @return True once the first reload has completed
+     */
+    public boolean isLoaded() {
+        return catalog != null;
+    }
+
+    /**
+     * Retrieves every cached config matching the mod and type.
+     * @param mod The mod to filter for, or an empty string for all mods
+     * @param type The type to filter for, or an empty string for all types
+     * @return The matching configs, empty if nothing matches
+     */
+    public CatalogSlice get(String mod, String type) {
+        return slice(catalog, mod, type);
+    }
+
+    private static CatalogSlice slice(Map<String, Map<String, CatalogSlice>> catalog, String mod, String type) {
+        Map<String, CatalogSlice> byType = catalog.get(mod);
+        if (byType == null) {
+            return CatalogSlice.EMPTY;
+        }
+        return byType.getOrDefault(type, CatalogSlice.EMPTY);
+    }
+
+    /**
+     * Retrieves every cached config matching the search term from the search index, computing and caching the result if it hasn't been requested before.
+     * @param term An escaped search term
+     * @return The matching configs, best match first, empty if nothing matches
+     */
+    public CatalogSlice search(String term) {
+        CatalogSlice cached = searchResults.get(term);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        return searchFlights.run(term, () -> {
+            // An identical search may have finished while this one was waiting to run
+            final CatalogSlice FINISHED = searchResults.get(term);
+            if (FINISHED != null) {
+                hits.incrementAndGet();
+                return FINISHED;
+            }
+            misses.incrementAndGet();
+            return searchIndexed(term);
+        });
+    }
+
+    private CatalogSlice searchIndexed(String term) {
+        // Search a fixed catalog so a concurrent reload can't leave stale results behind
+        final Map<String, Map<String, CatalogSlice>> CATALOG;
+        final SearchIndex INDEX;
+        synchronized (searchResults) {
+            CATALOG = catalog;
+            INDEX = searchIndex;
+        }
+        final CatalogSlice ALL_CONFIGS = slice(CATALOG, ALL, ALL);
+        final int[] POSITIONS = INDEX.search(term);
+        final List<Document> MATCHED = new ArrayList<Document>(POSITIONS.length);
+        final List<byte[]> SERIALIZED = new ArrayList<byte[]>(POSITIONS.length);
+        for (int position : POSITIONS) {
+            MATCHED.add(ALL_CONFIGS.getConfigs().get(position));
+            SERIALIZED.add(ALL_CONFIGS.getSerialized().get(position));
+        }
+
+        final CatalogSlice RESULT = new CatalogSlice(MATCHED, SERIALIZED, false);
+        synchronized (searchResults) {
+            if (CATALOG == catalog) {
+                searchResults.put(term, RESULT);
+            }
+        }
+        return RESULT;
+    }
+
+    /**
+     * Retrieves every cached config matching all of the filters from the facet index, computing and caching the result if it hasn't been requested before.
+     * @param filters The filters to apply
+     * @return The matching configs in class name order, along with the facet counts for them
+     */
+    public FacetIndex.Result query(List<FacetIndex.Filter> filters) {
+        final List<String> CANONICAL = new ArrayList<String>(filters.size());
+        filters.forEach(filter -> CANONICAL.add(filter.toString()));
+        Collections.sort(CANONICAL);
+        final String KEY = String.join("&", CANONICAL);
+        FacetIndex.Result cached = queryResults.get(KEY);
+        if (cached != null) {
+            return cached;
+        }
+        return queryFlights.run(KEY, () -> {
+            final FacetIndex.Result FINISHED = queryResults.get(KEY);
+            if (FINISHED != null) {
+                return FINISHED;
+            }
+
+            // Query a fixed index so a concurrent reload can't leave stale results behind
+            final FacetIndex INDEX = facetIndex;
+            final FacetIndex.Result RESULT = INDEX.query(filters);
+            synchronized (searchResults) {
+                if (INDEX == facetIndex) {
+                    queryResults.put(KEY, RESULT);
+                }
+            }
+            return RESULT;
+        });
+    }
+
+    /**
+     * @return The class name index of the current catalog, resolve every class of a request against the same index so they all come from the same catalog
+     */
+    public ClassIndex getClassIndex() {
+        return classIndex;
+    }
+
+    /**
+     * Retrieves a slice that only serializes some fields of each config, projecting and caching it if it hasn't been requested before. The projected slice is paged and cached like any other.
+     * @param slice A slice previously returned by this cache
+     * @param fields The fields to keep, in the order they should be written, or empty to keep every field
+     * @param compact True to write each config without whitespace
+     * @return The projected slice, or the slice itself if nothing is projected
+     */
+    public CatalogSlice project(CatalogSlice slice, List<String> fields, boolean compact) {
+        if (fields.isEmpty() && !compact) {
+            return slice;
+        }
+        return cached(projections, projectionFlights, new PageKey(slice, String.join(",", fields), compact ? 1 : 0), () -> slice.project(fields, compact));
+    }
+
+    /**
+     * Retrieves the serialized envelope for the result of a query, with its facet counts and the whole slice or a single page of it, serializing and caching it if it hasn't been requested before.
+     * @param result A result previously returned by {@link #query(List)}
+     * @param slice The configs of the result to serialize, e.g. a projection of its slice
+     * @param facets The fields to count the matching configs per value of
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @param after Keyset cursor, or null to page by number
+     * @return The serialized envelope
+     */
+    public JsonBody facets(FacetIndex.Result result, CatalogSlice slice, List<String> facets, int page, int size, String after) {
+        return cached(pages, pageFlights, new PageKey(slice, Arrays.asList(String.join(",", facets), after, page), size), () -> {
+            final List<byte[]> CONFIGS = after != null ? slice.serializedAfter(after, size) : slice.serializedPage(page, size);
+            final String NEXT = after != null ? slice.nextAfter(after, size) : null;
+            return JsonBody.ofFacets(slice.size(), NEXT, result.facets(facets), CONFIGS);
+        });
+    }
+
+    /**
+     * Retrieves the serialized body for a page of a slice, serializing and caching it if it hasn't been requested before.
+     * @param slice A slice previously returned by this cache
+     * @param page Pagination page number
+     * @param size Pagination page size
+     * @return The serialized page
+     */
+    public JsonBody page(CatalogSlice slice, int page, int size) {
+        return cached(pages, pageFlights, new PageKey(slice, page, size), () -> slice.page(page, size));
+    }
+
+    /**
+     * Retrieves the serialized envelope for the page of a slice following a keyset cursor, serializing and caching it if it hasn't been requested before.
+     * @param slice A slice previously returned by this cache
+     * @param after The class name of the last config the client has seen, or an empty string to start from the beginning
+     * @param size Pagination page size, -1 for every remaining config
+     * @return The serialized envelope
+     */
+    public JsonBody after(CatalogSlice slice, String after, int size) {
+        return cached(pages, pageFlights, new PageKey(slice, after, size), () -> slice.after(after, size));
+    }
+
+    /**
+     * @return The total number of configs held in the cache
+     */
+    public int size() {
+        return catalog == null ? 0 : get(ALL, ALL).size();
+    }
+
+    /**
+     * @return Mods that are being served from an earlier reload because their collection couldn't be read during the latest one
+     */
+    public Set<String> getStaleMods() {
+        return staleMods;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of requests that waited for an identical request to compute a result instead of computing it themselves
+     */
+    public long getCoalesced() {
+        return searchFlights.getCoalesced() + queryFlights.getCoalesced() + pageFlights.getCoalesced() + projectionFlights.getCoalesced();
+    }
+
+    /**
+     * Looks a value up in one of the caches, computing it once for every concurrent request that misses it. Values computed from a slice of an earlier catalog are returned but not cached, as they would never be hit again and would keep that catalog in memory.
+     */
+    private <V> V cached(Map<PageKey, V> cache, SingleFlight<PageKey, V> flights, PageKey key, Supplier<V> computation) {
+        final V CACHED = cache.get(key);
+        if (CACHED != null) {
+            return CACHED;
+        }
+        return flights.run(key, () -> {
+            final V FINISHED = cache.get(key);
+            if (FINISHED != null) {
+                return FINISHED;
+            }
+            final V VALUE = computation.get();
+            synchronized (searchResults) {
+                if (isCurrent(key.slice)) {
+                    cache.put(key, VALUE);
+                }
+            }
+            return VALUE;
+        });
+    }
+
+    /**
+     * @return True if the slice was taken from the current catalog, judged by whether its first and last configs are in it. Must be called while holding the lock on the search results so a reload can't happen in between
+     */
+    private boolean isCurrent(CatalogSlice slice) {
+        if (slice.isEmpty()) {
+            return true;
+        }
+        final List<Document> CONFIGS = slice.getConfigs();
+        return classIndex.contains(CONFIGS.get(0)) && classIndex.contains(CONFIGS.get(CONFIGS.size() - 1));
+    }
+
+    /**
+     * Serializes every config once, then groups them by every mod and type combination with {@link #ALL} acting as the wildcard for both.
+     * Each slice is sorted by class name, then mod, then serialized JSON so the order is stable between reloads, with duplicates removed.
+     * @param modContents Configs keyed by the mod they belong to
+     * @return An immutable nested map of mod to type to slice
+     */
+    private static Map<String, Map<String, CatalogSlice>> index(Map<String, List<Document>> modContents) {
+        final long START = System.nanoTime();
+        final List<SerializedConfig> SERIALIZED = new ArrayList<SerializedConfig>();
+        modContents.forEach((mod, configs) -> configs.forEach(config -> SERIALIZED.add(new SerializedConfig(mod, config))));
+        final long SERIALIZE_END = Telemetry.reloadStage("serialize", START);
+        SERIALIZED.sort(Comparator
+            .comparing((SerializedConfig serializedConfig) -> serializedConfig.className)
+            .thenComparing(serializedConfig -> serializedConfig.mod)
+            .thenComparing(serializedConfig -> serializedConfig.json)
+        );
+        final long SORT_END = Telemetry.reloadStage("sort", SERIALIZE_END);
+
+        final Map<String, Map<String, List<SerializedConfig>>> INDEX = new HashMap<String, Map<String, List<SerializedConfig>>>();
+        INDEX.computeIfAbsent(ALL, key -> new HashMap<String, List<SerializedConfig>>()).computeIfAbsent(ALL, key -> new ArrayList<SerializedConfig>());
+        for (SerializedConfig serializedConfig : SERIALIZED) {
+            final String TYPE = String.valueOf(serializedConfig.config.get("type"));
+            // Configs without a mod are only reachable through the wildcard
+            final String[] MODS = serializedConfig.mod.equals(ALL) ? new String[] {ALL} : new String[] {serializedConfig.mod, ALL};
+            for (String mod : MODS) {
+                Map<String, List<SerializedConfig>> byType = INDEX.computeIfAbsent(mod, key -> new HashMap<String, List<SerializedConfig>>());
+                addDistinct(byType.computeIfAbsent(TYPE, key -> new ArrayList<SerializedConfig>()), serializedConfig);
+                if (!TYPE.equals(ALL)) {
+                    addDistinct(byType.computeIfAbsent(ALL, key -> new ArrayList<SerializedConfig>()), serializedConfig);
+                }
+            }
+        }
+
+        final long DISTINCT_END = Telemetry.reloadStage("distinct", SORT_END);
+
+        final Map<String, Map<String, CatalogSlice>> SLICES = new HashMap<String, Map<String, CatalogSlice>>();
+        INDEX.forEach((mod, byType) -> {
+            Map<String, CatalogSlice> slicesByType = new HashMap<String, CatalogSlice>();
+            byType.forEach((type, serializedConfigs) -> {
+                List<Document> configs = new ArrayList<Document>(serializedConfigs.size());
+                List<byte[]> serialized = new ArrayList<byte[]>(serializedConfigs.size());
+                for (SerializedConfig serializedConfig : serializedConfigs) {
+                    configs.add(serializedConfig.config);
+                    serialized.add(serializedConfig.bytes);
+                }
+                slicesByType.put(type.intern(), new CatalogSlice(configs, serialized, true));
+            });
+            // Interned keys match the canonical values from the RequestValidator by reference
+            SLICES.put(mod.intern(), Collections.unmodifiableMap(slicesByType));
+        });
+        Telemetry.reloadStage("merge", DISTINCT_END);
+        return Collections.unmodifiableMap(SLICES);
+    }
+
+    /**
+     * Appends a config to an already sorted list unless it is identical to the last entry.
+     */
+    private static void addDistinct(List<SerializedConfig> sorted, SerializedConfig serializedConfig) {
+        if (sorted.isEmpty() || !sorted.get(sorted.size() - 1).json.equals(serializedConfig.json)) {
+            sorted.add(serializedConfig);
+        }
+    }
+
+    private static <K, V> Map<K, V> boundedMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * A config along with the mod it was loaded from and its serialized form.
+     */
+    private static class SerializedConfig {
+        private final String mod;
+        private final Document config;
+        private final String className;
+        private final String json;
+        private final byte[] bytes;
+
+        private SerializedConfig(String mod, Document config) {
+            this.mod = mod;
+            this.config = config;
+            this.className = CatalogSlice.classOf(config);
+            this.json = config.toJson();
+            this.bytes = json.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Identifies a page of a specific slice, by either page number or keyset cursor (or a projection of the slice, by its fields, or a query envelope, by its facets and page). Slices are compared by identity as they are never rebuilt without the whole cache being cleared.
+     */
+    private static class PageKey {
+        private final CatalogSlice slice;
+        private final Object page;
+        private final int size;
+
+        private PageKey(CatalogSlice slice, Object page, int size) {
+            this.slice = slice;
+            this.page = page;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PageKey)) {
+                return false;
+            }
+            PageKey otherKey = (PageKey) other;
+            return slice == otherKey.slice && page.equals(otherKey.page) && size == otherKey.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(slice) * 31 + page.hashCode()) * 31 + size;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.api.main;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.Document;
+
+/**
+ * An immutable selection of configs from the catalog (e.g. a single mod and type, or a search result) together with the serialized form of each config and of the whole selection.
+ * Mod/type slices are sorted by class name, search results are sorted by relevance.
+ */
+public class CatalogSlice {
+    public static final CatalogSlice EMPTY = new CatalogSlice(Collections.emptyList(), Collections.emptyList(), true);
+
+    private final List<Document> configs;
+    private final List<byte[]> serialized;
+    private final String[] classes;
+    private final boolean sortedByClass;
+    private volatile JsonBody body = null;
+
+    /**
+     * @param configs The configs in this slice, in the order they should be served
+     * @param serialized The UTF-8 encoded JSON of each config, in the same order as {@code configs}
+     * @param sortedByClass True if the configs are sorted by class name, which lets keyset cursors be found with a binary search
+     */
+    public CatalogSlice(List<Document> configs, List<byte[]> serialized, boolean sortedByClass) {
+        this.configs = Collections.unmodifiableList(configs);
+        this.sortedByClass = sortedByClass;
+        this.serialized = Collections.unmodifiableList(serialized);
+        this.classes = new String[configs.size()];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = classOf(configs.get(i));
+        }
+    }
+
+    /**
+     * Serializes a single page of the slice.
+     * @param page Pagination page number
+     * @param size Pagination page size
+     * @return The serialized page, empty if the page is past the end of the slice
+     */
+    public JsonBody page(int page, int size) {
+        return JsonBody.ofArray(serializedPage(page, size));
+    }
+
+    /**
+     * Selects the serialized configs on a single page of the slice.
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @return The serialized configs on the page, empty if the page is past the end of the slice
+     */
+    public List<byte[]> serializedPage(int page, int size) {
+        if (size == -1) {
+            return serialized;
+        }
+        final long START = (long) page * size;
+        if (START >= serialized.size()) {
+            return Collections.emptyList();
+        }
+        return serialized.subList((int) START, (int) Math.min(START + size, serialized.size()));
+    }
+
+    /**
+     * Serializes the configs that come after a keyset cursor, wrapped in an envelope holding the total number of configs in the slice and the cursor for the following page.
+     * A page never splits configs that share a class name (e.g. the same class in two mods), so it can hold more than {@code size} configs when class names repeat.
+     * @param after The class name of the last config the client has seen, or an empty string to start from the beginning
+     * @param size Pagination page size, -1 for every remaining config
+     * @return The serialized envelope
+     */
+    public JsonBody after(String after, int size) {
+        final int[] RANGE = rangeAfter(after, size);
+        return JsonBody.ofEnvelope(classes.length, next(RANGE), serialized.subList(RANGE[0], RANGE[1]));
+    }
+
+    /**
+     * @param after The class name of the last config the client has seen, or an empty string to start from the beginning
+     * @param size Pagination page size, -1 for every remaining config
+     * @return The cursor for the page following the one after {@code after}, or null if that page is the last one
+     */
+    public String nextAfter(String after, int size) {
+        return next(rangeAfter(after, size));
+    }
+
+    /**
+     * Selects the serialized configs that come after a keyset cursor, see {@link #after(String, int)}.
+     * @param after The class name of the last config the client has seen, or an empty string to start from the beginning
+     * @param size Pagination page size, -1 for every remaining config
+     * @return The serialized configs on the page
+     */
+    public List<byte[]> serializedAfter(String after, int size) {
+        final int[] RANGE = rangeAfter(after, size);
+        return serialized.subList(RANGE[0], RANGE[1]);
+    }
+
+    private String next(int[] range) {
+        return range[1] < classes.length && range[1] > range[0] ? classes[range[1] - 1] : null;
+    }
+
+    private int[] rangeAfter(String after, int size) {
+        final int START = after.isEmpty() ? 0 : indexAfter(after);
+        int end = size == -1 ? classes.length : (int) Math.min((long) START + size, classes.length);
+        while (end > START && end < classes.length && classes[end].equals(classes[end - 1])) {
+            end++;
+        }
+        return new int[] {START, end};
+    }
+
+    /**
+     * Builds a copy of the slice that serializes only some fields of each config, keeping the same order so pages and keyset cursors are unchanged.
+     * @param fields The fields to keep, in the order they should be written, or empty to keep every field
+     * @param compact True to write each config without whitespace
+     * @return The projected slice
+     */
+    public CatalogSlice project(Collection<String> fields, boolean compact) {
+        final List<byte[]> PROJECTED = new ArrayList<byte[]>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            byte[] bytes = serialized.get(i);
+            if (!fields.isEmpty()) {
+                final Document CONFIG = configs.get(i);
+                final Document PROJECTION = new Document();
+                for (String field : fields) {
+                    if (CONFIG.containsKey(field)) {
+                        PROJECTION.put(field, CONFIG.get(field));
+                    }
+                }
+                bytes = PROJECTION.toJson().getBytes(StandardCharsets.UTF_8);
+            }
+            PROJECTED.add(compact ? JsonBody.compact(bytes) : bytes);
+        }
+        return new CatalogSlice(configs, PROJECTED, sortedByClass);
+    }
+
+    /**
+     * Finds the position of the first config after the cursor. In a slice sorted by class name that is the first config whose class name sorts after it, otherwise it is the config following the last one with that class name.
+     * @param after A class name
+     * @return The index of the first config after the cursor, or the size of the slice if there is none
+     */
+    private int indexAfter(String after) {
+        if (!sortedByClass) {
+            for (int i = classes.length - 1; i >= 0; i--) {
+                if (classes[i].equals(after)) {
+                    return i + 1;
+                }
+            }
+            return classes.length;
+        }
+
+        int low = 0;
+        int high = classes.length;
+        while (low < high) {
+            final int MIDDLE = (low + high) >>> 1;
+            if (classes[MIDDLE].compareTo(after) <= 0) {
+                low = MIDDLE + 1;
+            } else {
+                high = MIDDLE;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param config A config
+     * @return The class name the catalog is sorted by
+     */
+    public static String classOf(Document config) {
+        return String.valueOf(config.get("class"));
+    }
+
+    public List<Document> getConfigs() {
+        return configs;
+    }
+
+    public List<byte[]> getSerialized() {
+        return serialized;
+    }
+
+    /**
+     * @return The whole slice serialized as a JSON array, built the first time it is needed so paged and streamed slices never pay for it
+     */
+    public JsonBody getBody() {
+        JsonBody whole = body;
+        if (whole != null) {
+            return whole;
+        }
+        // Concurrent requests for the same slice wait for a single serialization
+        synchronized (this) {
+            if (body == null) {
+                body = JsonBody.ofArray(serialized);
+            }
+            return body;
+        }
+    }
+
+    public int size() {
+        return configs.size();
+    }
+
+    public boolean isEmpty() {
+        return configs.isEmpty();
+    }
+}
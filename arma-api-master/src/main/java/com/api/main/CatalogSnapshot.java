@@ -0,0 +1,308 @@
+package com.api.main;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+
+/**
+ * Compact binary snapshot of the config catalog, read through a memory mapped buffer so opening one costs next to nothing and configs are only decoded when a mod is read.
+ * The catalog cache reads every mod when it loads, so every config still ends up decoded onto the heap and nothing is served from the mapped buffer. The snapshot only reduces the time spent parsing.
+ * Every key and string value is stored once in a string table and referenced by id (image paths are split so their directory is shared as well), and the configs are grouped by mod then type with an offset index over each group.
+ * <pre>
+ * int magic, int format version
+ * int string count, then per string: int length, UTF-8 bytes
+ * int index size, then per mod/type group: int mod id, int type id, int first config, int config count
+ * int config count, then per config: int offset of its record from the start of the records
+ * records, per config: short field count, then per field: int key id, byte tag, tagged value
+ * </pre>
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x41524d41;
+    private static final int FORMAT_VERSION = 1;
+    private static final Set<String> PATH_FIELDS = Set.of("image");
+
+    // Value tags
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte PATH = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOLEAN = 6;
+    private static final byte JSON = 7;
+
+    private final ByteBuffer buffer;
+    private final int[] stringOffsets;
+    private final String[] strings;
+    private final Map<String, Map<String, int[]>> index;
+    private final int recordsStart;
+    private final int[] recordOffsets;
+
+    private CatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Not a catalog snapshot, or written by an incompatible version");
+        }
+
+        // Only the position of each string is read up front, strings are decoded the first time they are used
+        int position = 8;
+        stringOffsets = new int[buffer.getInt(position)];
+        strings = new String[stringOffsets.length];
+        position += 4;
+        for (int i = 0; i < stringOffsets.length; i++) {
+            stringOffsets[i] = position;
+            position += 4 + buffer.getInt(position);
+        }
+
+        index = new LinkedHashMap<String, Map<String, int[]>>();
+        final int GROUPS = buffer.getInt(position);
+        position += 4;
+        for (int i = 0; i < GROUPS; i++, position += 16) {
+            index.computeIfAbsent(string(buffer.getInt(position)), key -> new LinkedHashMap<String, int[]>())
+                .put(string(buffer.getInt(position + 4)), new int[] {buffer.getInt(position + 8), buffer.getInt(position + 12)});
+        }
+
+        recordOffsets = new int[buffer.getInt(position)];
+        position += 4;
+        for (int i = 0; i < recordOffsets.length; i++, position += 4) {
+            recordOffsets[i] = buffer.getInt(position);
+        }
+        recordsStart = position;
+    }
+
+    /**
+     * Maps a snapshot file into memory.
+     * @param path The snapshot file
+     * @return The opened snapshot
+     * @throws IOException If the file cannot be read or isn't a snapshot
+     */
+    public static CatalogSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes configs to a snapshot file.
+     * @param configs The configs to write
+     * @param path The snapshot file, replaced if it exists
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(List<Document> configs, Path path) throws IOException {
+        final List<Document> SORTED = new ArrayList<Document>(configs);
+        SORTED.sort(Comparator.comparing(IngestionPipeline::modOf).thenComparing(CatalogSnapshot::typeOf).thenComparing(CatalogSlice::classOf));
+
+        // Encode the records first, interning every string as it is seen
+        final Map<String, Integer> STRINGS = new LinkedHashMap<String, Integer>();
+        final ByteArrayOutputStream RECORD_BYTES = new ByteArrayOutputStream();
+        final DataOutputStream RECORDS = new DataOutputStream(RECORD_BYTES);
+        final int[] OFFSETS = new int[SORTED.size()];
+        final List<int[]> GROUPS = new ArrayList<int[]>();
+        for (int i = 0; i < SORTED.size(); i++) {
+            final Document CONFIG = SORTED.get(i);
+            final int MOD = intern(STRINGS, IngestionPipeline.modOf(CONFIG));
+            final int TYPE = intern(STRINGS, typeOf(CONFIG));
+            if (GROUPS.isEmpty() || GROUPS.get(GROUPS.size() - 1)[0] != MOD || GROUPS.get(GROUPS.size() - 1)[1] != TYPE) {
+                GROUPS.add(new int[] {MOD, TYPE, i, 0});
+            }
+            GROUPS.get(GROUPS.size() - 1)[3]++;
+
+            OFFSETS[i] = RECORDS.size();
+            RECORDS.writeShort(CONFIG.size());
+            for (Map.Entry<String, Object> field : CONFIG.entrySet()) {
+                RECORDS.writeInt(intern(STRINGS, field.getKey()));
+                writeValue(RECORDS, STRINGS, field.getKey(), field.getValue());
+            }
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(STRINGS.size());
+            for (String string : STRINGS.keySet()) {
+                final byte[] BYTES = string.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(BYTES.length);
+                output.write(BYTES);
+            }
+            output.writeInt(GROUPS.size());
+            for (int[] group : GROUPS) {
+                for (int value : group) {
+                    output.writeInt(value);
+                }
+            }
+            output.writeInt(OFFSETS.length);
+            for (int offset : OFFSETS) {
+                output.writeInt(offset);
+            }
+            RECORD_BYTES.writeTo(output);
+        }
+    }
+
+    private static void writeValue(DataOutputStream records, Map<String, Integer> strings, String key, Object value) throws IOException {
+        if (value == null) {
+            records.writeByte(NULL);
+        } else if (value instanceof String && PATH_FIELDS.contains(key)) {
+            final String PATH_VALUE = (String) value;
+            final int SEPARATOR = Math.max(PATH_VALUE.lastIndexOf('\\'), PATH_VALUE.lastIndexOf('/')) + 1;
+            records.writeByte(PATH);
+            records.writeInt(intern(strings, PATH_VALUE.substring(0, SEPARATOR)));
+            records.writeInt(intern(strings, PATH_VALUE.substring(SEPARATOR)));
+        } else if (value instanceof String) {
+            records.writeByte(STRING);
+            records.writeInt(intern(strings, (String) value));
+        } else if (value instanceof Integer) {
+            records.writeByte(INT);
+            records.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            records.writeByte(LONG);
+            records.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            records.writeByte(DOUBLE);
+            records.writeDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            records.writeByte(BOOLEAN);
+            records.writeBoolean((Boolean) value);
+        } else {
+            // Anything else (arrays, nested objects) is kept as JSON
+            records.writeByte(JSON);
+            records.writeInt(intern(strings, new Document("value", value).toJson()));
+        }
+    }
+
+    private static int intern(Map<String, Integer> strings, String string) {
+        return strings.computeIfAbsent(string, key -> strings.size());
+    }
+
+    private static String typeOf(Document config) {
+        return config.get("type") == null ? "" : String.valueOf(config.get("type"));
+    }
+
+    /**
+     * Decodes every config of a mod.
+     * @param mod A mod name
+     * @return The configs of the mod sorted by type then class name, empty if the snapshot doesn't hold the mod
+     */
+    public List<Document> read(String mod) {
+        final List<Document> CONFIGS = new ArrayList<Document>();
+        for (int[] group : index.getOrDefault(mod, Collections.emptyMap()).values()) {
+            decode(group, CONFIGS);
+        }
+        return CONFIGS;
+    }
+
+    /**
+     * Decodes every config of a mod and type, using the offset index to skip straight to them.
+     * @param mod A mod name
+     * @param type A config type
+     * @return The configs of that mod and type sorted by class name, empty if there are none
+     */
+    public List<Document> read(String mod, String type) {
+        final List<Document> CONFIGS = new ArrayList<Document>();
+        final int[] GROUP = index.getOrDefault(mod, Collections.emptyMap()).get(type);
+        if (GROUP != null) {
+            decode(GROUP, CONFIGS);
+        }
+        return CONFIGS;
+    }
+
+    private void decode(int[] group, List<Document> configs) {
+        for (int i = group[0]; i < group[0] + group[1]; i++) {
+            int position = recordsStart + recordOffsets[i];
+            final int FIELDS = buffer.getShort(position);
+            position += 2;
+            final Document CONFIG = new Document();
+            for (int field = 0; field < FIELDS; field++) {
+                final String KEY = string(buffer.getInt(position));
+                final byte TAG = buffer.get(position + 4);
+                position += 5;
+                switch (TAG) {
+                    case NULL:
+                        CONFIG.put(KEY, null);
+                        break;
+                    case STRING:
+                        CONFIG.put(KEY, string(buffer.getInt(position)));
+                        position += 4;
+                        break;
+                    case PATH:
+                        CONFIG.put(KEY, string(buffer.getInt(position)) + string(buffer.getInt(position + 4)));
+                        position += 8;
+                        break;
+                    case INT:
+                        CONFIG.put(KEY, buffer.getInt(position));
+                        position += 4;
+                        break;
+                    case LONG:
+                        CONFIG.put(KEY, buffer.getLong(position));
+                        position += 8;
+                        break;
+                    case DOUBLE:
+                        CONFIG.put(KEY, buffer.getDouble(position));
+                        position += 8;
+                        break;
+                    case BOOLEAN:
+                        CONFIG.put(KEY, buffer.get(position) != 0);
+                        position += 1;
+                        break;
+                    default:
+                        CONFIG.put(KEY, Document.parse(string(buffer.getInt(position))).get("value"));
+                        position += 4;
+                }
+            }
+            configs.add(CONFIG);
+        }
+    }
+
+    /**
+     * Decodes a string from the string table, the same instance is returned every time it is used (races only cost a duplicate decode).
+     */
+    private String string(int id) {
+        String string = strings[id];
+        if (string == null) {
+            final int OFFSET = stringOffsets[id];
+            final byte[] BYTES = new byte[buffer.getInt(OFFSET)];
+            buffer.duplicate().position(OFFSET + 4).get(BYTES);
+            string = new String(BYTES, StandardCharsets.UTF_8);
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    /**
+     * @return The mods in the snapshot
+     */
+    public Set<String> getMods() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * @param mod A mod name
+     * @return The types of the configs of the mod in the snapshot
+     */
+    public Set<String> getTypes(String mod) {
+        return Collections.unmodifiableSet(index.getOrDefault(mod, new HashMap<String, int[]>()).keySet());
+    }
+
+    /**
+     * @return The number of configs in the snapshot
+     */
+    public int size() {
+        return recordOffsets.length;
+    }
+}
@@ -0,0 +1,24 @@
+package com.api.main;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.bson.Document;
+
+/**
+ * Storage the catalog cache is loaded from, either the mod collections in mongo ({@link CollectionRegistry}) or the data files bundled with the application ({@link EmbeddedCatalogSource}).
+ */
+public interface CatalogSource {
+
+    /**
+     * Finds the mods that are currently available to read.
+     * @throws Exception If the storage cannot be reached
+     */
+    void refresh() throws Exception;
+
+    /**
+     * @return A task reading every config of each mod found by the last {@link #refresh()}, keyed by mod name
+     */
+    Map<String, Callable<List<Document>>> readers();
+}
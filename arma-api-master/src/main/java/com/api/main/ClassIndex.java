@@ -0,0 +1,83 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.bson.Document;
+
+/**
+ * Exact match lookup of configs by class name, built once per catalog reload. Class names are matched case insensitively like the game does, and a class defined by several mods resolves to every one of them unless a mod is given.
+ */
+public class ClassIndex {
+    public static final ClassIndex EMPTY = new ClassIndex(CatalogSlice.EMPTY);
+
+    private final CatalogSlice all;
+    private final Map<String, int[]> positions;
+
+    /**
+     * @param all Every config in the catalog
+     */
+    public ClassIndex(CatalogSlice all) {
+        this.all = all;
+        final Map<String, List<Integer>> POSITIONS = new HashMap<String, List<Integer>>();
+        for (int i = 0; i < all.size(); i++) {
+            POSITIONS.computeIfAbsent(keyOf(CatalogSlice.classOf(all.getConfigs().get(i))), key -> new ArrayList<Integer>(1)).add(i);
+        }
+
+        final Map<String, int[]> INDEX = new HashMap<String, int[]>(POSITIONS.size() * 2);
+        POSITIONS.forEach((className, classPositions) -> INDEX.put(className, classPositions.stream().mapToInt(Integer::intValue).toArray()));
+        this.positions = INDEX;
+    }
+
+    private static String keyOf(String className) {
+        return className.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param mod The mod the config must belong to, or an empty string for any mod
+     * @param className The class name to look up
+     * @return The serialized configs with that class name, in mod order, empty if there are none
+     */
+    public List<byte[]> find(String mod, String className) {
+        final int[] FOUND = positions.get(keyOf(className));
+        if (FOUND == null) {
+            return Collections.emptyList();
+        }
+
+        final List<byte[]> SERIALIZED = new ArrayList<byte[]>(FOUND.length);
+        for (int position : FOUND) {
+            final Document CONFIG = all.getConfigs().get(position);
+            if (mod.isEmpty() || mod.equals(IngestionPipeline.modOf(CONFIG))) {
+                SERIALIZED.add(all.getSerialized().get(position));
+            }
+        }
+        return SERIALIZED;
+    }
+
+    /**
+     * @param config A config
+     * @return True if this very config (not just an equal one) is in the catalog the index was built over
+     */
+    public boolean contains(Document config) {
+        final int[] FOUND = positions.get(keyOf(CatalogSlice.classOf(config)));
+        if (FOUND != null) {
+            for (int position : FOUND) {
+                if (all.getConfigs().get(position) == config) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of distinct class names in the index
+     */
+    public int size() {
+        return positions.size();
+    }
+}
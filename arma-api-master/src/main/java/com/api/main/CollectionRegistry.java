@@ -0,0 +1,183 @@
+package com.api.main;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+
+/**
+ * Registry of the mod collections in the database. The collection list is only fetched from mongo when the registry is refreshed (at startup, after the updater runs and on every catalog refresh) rather than every time a collection is needed.
+ * Every full update is loaded into its own set of {@code data.v<version>.<mod>} collections, and a version pointer in the {@code meta} collection selects which set is live. Version 0 is the unversioned {@code data.<mod>} collections, which are live until the first update publishes a version.
+ */
+public class CollectionRegistry implements CatalogSource {
+    private static Logger LOGGER = Logger.getLogger(CollectionRegistry.class.getName());
+    public static final String PREFIX = "data.";
+    public static final String META_COLLECTION = "meta";
+    public static final String HASHES_COLLECTION = "meta.hashes";
+    private static final String VERSION_POINTER = "catalog";
+    private static final Pattern VERSIONED = Pattern.compile("^" + Pattern.quote(PREFIX) + "v(\\d+)\\.");
+
+    private final CollectionStore store;
+    private volatile Map<String, String> collections = Collections.emptyMap();
+    private volatile long version;
+    private volatile long previousVersion;
+    private final AtomicLong refreshes = new AtomicLong();
+
+    /**
+     * @param store The database holding the mod collections
+     */
+    public CollectionRegistry(CollectionStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Reads the version pointer and lists the collections in the database once, then replaces the registered collections with those of the live version.
+     */
+    @Override
+    public void refresh() {
+        final Document POINTER = readPointer();
+        final long VERSION = POINTER == null ? 0 : POINTER.get("version", Number.class).longValue();
+        final long PREVIOUS = POINTER == null ? 0 : POINTER.get("previous", Number.class).longValue();
+        final String VERSION_PREFIX = prefixOf(VERSION);
+
+        final Map<String, String> REFRESHED = new HashMap<String, String>();
+        for (String collectionName : store.listCollectionNames()) {
+            if (versionOf(collectionName) == VERSION) {
+                REFRESHED.put(collectionName.substring(VERSION_PREFIX.length()), collectionName);
+            }
+        }
+        collections = Collections.unmodifiableMap(REFRESHED);
+        version = VERSION;
+        previousVersion = PREVIOUS;
+        LOGGER.log(Level.INFO, String.format("[INFO] Collection registry refreshed (refresh #%d) with %d mod collections at version %d", refreshes.incrementAndGet(), REFRESHED.size(), VERSION));
+    }
+
+    /**
+     * @return A task querying each registered collection of the live version for every config, keyed by mod name
+     */
+    @Override
+    public Map<String, Callable<List<Document>>> readers() {
+        final Map<String, Callable<List<Document>>> READERS = new HashMap<String, Callable<List<Document>>>();
+        collections.forEach((mod, collectionName) -> READERS.put(mod, () -> store.find(collectionName)));
+        return READERS;
+    }
+
+    /**
+     * @return A version number that is neither live nor kept for rollback, to load the next update into
+     */
+    public long nextVersion() {
+        return Math.max(version, previousVersion) + 1;
+    }
+
+    /**
+     * Makes a version live with a single write to the version pointer, keeping the current version for {@link #rollback()}. Running APIs pick it up on their next catalog refresh (every {@code config.CATALOG_REFRESH_SECONDS}), not straight away.
+     * @param nextVersion The version to make live, its collections should be fully loaded and indexed
+     */
+    public void publish(long nextVersion) {
+        writePointer(nextVersion, version);
+        LOGGER.log(Level.INFO, String.format("[SUCCESS] Published version %d, version %d is kept for rollback", nextVersion, version));
+        refresh();
+    }
+
+    /**
+     * Swaps the live version with the one it replaced. Like {@link #publish(long)}, running APIs only pick it up on their next catalog refresh.
+     * @throws Exception If no version has been published, or the previous version no longer has any collections
+     */
+    public void rollback() throws Exception {
+        refresh();
+        if (readPointer() == null || version == previousVersion) {
+            throw new Exception("[ERROR] There is no previous version to roll back to");
+        }
+        final long TARGET = previousVersion;
+        if (store.listCollectionNames().stream().noneMatch(collectionName -> versionOf(collectionName) == TARGET)) {
+            throw new Exception(String.format("[ERROR] Version %d has no collections left to roll back to", TARGET));
+        }
+
+        writePointer(TARGET, version);
+        LOGGER.log(Level.INFO, String.format("[SUCCESS] Rolled back from version %d to version %d", version, TARGET));
+        refresh();
+    }
+
+    /**
+     * Drops the collections and content hashes of every version other than the live one and the one kept for rollback.
+     */
+    public void dropRetired() {
+        for (String collectionName : store.listCollectionNames()) {
+            final long COLLECTION_VERSION = versionOf(collectionName);
+            if (COLLECTION_VERSION >= 0 && COLLECTION_VERSION != version && COLLECTION_VERSION != previousVersion) {
+                LOGGER.log(Level.INFO, "[INFO] Dropping retired collection " + collectionName);
+                store.drop(collectionName);
+            }
+        }
+        store.deleteUnless(HASHES_COLLECTION, "version", List.of(version, previousVersion));
+    }
+
+    private Document readPointer() {
+        final List<Document> POINTER = store.find(META_COLLECTION, "_id", VERSION_POINTER);
+        return POINTER.isEmpty() ? null : POINTER.get(0);
+    }
+
+    private void writePointer(long nextVersion, long previous) {
+        store.upsert(META_COLLECTION, new Document("_id", VERSION_POINTER).append("version", nextVersion).append("previous", previous));
+    }
+
+    /**
+     * @param version A catalog version
+     * @return The prefix of the names of that version's mod collections
+     */
+    public static String prefixOf(long version) {
+        return version == 0 ? PREFIX : PREFIX + "v" + version + ".";
+    }
+
+    /**
+     * @param collectionName The name of a collection
+     * @return The catalog version the collection belongs to, or -1 if it isn't a mod collection
+     */
+    public static long versionOf(String collectionName) {
+        final Matcher MATCHER = VERSIONED.matcher(collectionName);
+        if (MATCHER.find()) {
+            return Long.parseLong(MATCHER.group(1));
+        }
+        return collectionName.startsWith(PREFIX) ? 0 : -1;
+    }
+
+    /**
+     * @return The names of the registered collections of the live version keyed by mod name
+     */
+    public Map<String, String> getCollections() {
+        return collections;
+    }
+
+    public CollectionStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return The live catalog version as of the last refresh
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return The catalog version kept for rollback as of the last refresh
+     */
+    public long getPreviousVersion() {
+        return previousVersion;
+    }
+
+    /**
+     * @return The number of times the registry has been refreshed
+     */
+    public long getRefreshCount() {
+        return refreshes.get();
+    }
+}
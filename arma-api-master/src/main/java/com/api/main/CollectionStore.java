@@ -0,0 +1,83 @@
+package com.api.main;
+
+import java.util.List;
+
+import org.bson.Document;
+
+/**
+ * The collection operations the {@link CollectionRegistry} and {@link Updater} run against the database, so the versioning of the mod collections can be exercised without a mongo instance. {@link MongoCollectionStore} runs them against mongo.
+ */
+public interface CollectionStore {
+
+    /**
+     * @return The name of every collection in the database
+     */
+    List<String> listCollectionNames();
+
+    /**
+     * @param collectionName The collection to read
+     * @return Every document in the collection, empty if it doesn't exist
+     */
+    List<Document> find(String collectionName);
+
+    /**
+     * @param collectionName The collection to read
+     * @param field The field to match
+     * @param value The value the field must have
+     * @return Every document in the collection whose field has the value
+     */
+    List<Document> find(String collectionName, String field, Object value);
+
+    /**
+     * Inserts documents without any ordering between them, creating the collection if it doesn't exist.
+     * @param collectionName The collection to insert into
+     * @param documents The documents to insert
+     */
+    void insert(String collectionName, List<Document> documents);
+
+    /**
+     * Replaces a collection with a copy of another one, without its indexes.
+     * @param from The collection to copy
+     * @param to The collection to write the copy to
+     */
+    void copy(String from, String to);
+
+    /**
+     * Deletes every config with one of the class names, then inserts the given configs, in that order.
+     * @param collectionName The mod collection to write to, created if it doesn't exist
+     * @param classNames The class names to delete
+     * @param configs The configs to insert once they are deleted
+     */
+    void replaceClasses(String collectionName, List<String> classNames, List<Document> configs);
+
+    /**
+     * @param collectionName The collection to index
+     * @param field The field to add an ascending index on
+     */
+    void createIndex(String collectionName, String field);
+
+    /**
+     * @param collectionName The collection to drop, nothing happens if it doesn't exist
+     */
+    void drop(String collectionName);
+
+    /**
+     * Inserts a document, or replaces the document with the same {@code _id}.
+     * @param collectionName The collection to write to
+     * @param document The document to write
+     */
+    void upsert(String collectionName, Document document);
+
+    /**
+     * @param collectionName The collection to delete from
+     * @param id The {@code _id} of the document to delete
+     */
+    void delete(String collectionName, Object id);
+
+    /**
+     * @param collectionName The collection to delete from
+     * @param field The field to match
+     * @param values The values to keep, every document whose field has none of them is deleted
+     */
+    void deleteUnless(String collectionName, String field, List<?> values);
+}
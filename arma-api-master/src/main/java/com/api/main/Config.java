@@ -1,8 +1,10 @@
 package com.api.main;
 
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.List;
 
+import javax.annotation.PostConstruct;
+
+import com.mongodb.MongoClientOptions;
 import com.mongodb.MongoClientURI;
 
 import org.springframework.beans.factory.annotation.Value;
@@ -13,6 +15,8 @@ import org.springframework.context.annotation.Configuration;
  */
 @Configuration
 public class Config {
+    public static final String MONGO_STORAGE = "mongo";
+    public static final String EMBEDDED_STORAGE = "embedded";
 
     @Value("${config.MONGO_URI:mongodb://localhost:27017}")
     private String mongoUri;
@@ -26,19 +30,85 @@ public class Config {
     @Value("${config.SUPPORTED_MODS:vanilla,ace,3cb,rhs,niarms,tacvests,tryk,vsm,rksl,acre,projectopfor,immersioncigs}")
     private String supportedMods;
 
-    private static final ArrayList<String> TYPES = new ArrayList<String>(Arrays.asList(
+    @Value("${config.LOG_BUFFER_SIZE:8192}")
+    private int logBufferSize;
+
+    @Value("${config.REQUEST_LOG_PER_SECOND:50}")
+    private int requestLogPerSecond;
+
+    @Value("${config.CATALOG_REFRESH_SECONDS:600}")
+    private long catalogRefreshSeconds;
+
+    @Value("${config.SEARCH_CACHE_SIZE:1024}")
+    private int searchCacheSize;
+
+    @Value("${config.PAGE_CACHE_SIZE:4096}")
+    private int pageCacheSize;
+
+    @Value("${config.PROJECTION_CACHE_SIZE:256}")
+    private int projectionCacheSize;
+
+    @Value("${config.COMPRESSION_MIN_BYTES:1024}")
+    private int compressionMinBytes;
+
+    @Value("${config.FAN_OUT_THREADS:12}")
+    private int fanOutThreads;
+
+    @Value("${config.FAN_OUT_TIMEOUT_MS:30000}")
+    private long fanOutTimeoutMillis;
+
+    @Value("${config.BATCH_MAX_SIZE:1000}")
+    private int batchMaxSize;
+
+    @Value("${config.RATE_LIMIT_PER_SECOND:50}")
+    private int rateLimitPerSecond;
+
+    @Value("${config.RATE_LIMIT_BURST:100}")
+    private int rateLimitBurst;
+
+    @Value("${config.MAX_FULL_SCANS:32}")
+    private int maxFullScans;
+
+    @Value("${config.STORAGE:mongo}")
+    private String storage;
+
+    @Value("${config.SNAPSHOT_PATH:}")
+    private String snapshotPath;
+
+    @Value("${config.INGEST_BATCH_SIZE:1000}")
+    private int ingestBatchSize;
+
+    @Value("${config.INGEST_TIMEOUT_MS:600000}")
+    private long ingestTimeoutMillis;
+
+    private static final List<String> TYPES = List.of(
         "Primaries", "Secondaries", "Launchers", "Throwables", "Explosives", "Muzzles",
         "Pointers", "Optics", "Bipods", "Tools", "Terminals", "Maps", "GPSs", "Radios",
         "Compasses", "Watches", "Facewear", "Headgear", "Goggles", "Binoculars",
         "Magazines", "Uniforms", "Vests", "Backpacks"
-    ));
+    );
+
+    private final static String SPECIAL_MONGO_CHARS = "'\"\\;{}$";
 
-    private final static ArrayList<Character> SPECIAL_MONGO_CHARS = new ArrayList<Character>(Arrays.asList('\'', '\"', '\\', ';', '{', '}', '$'));
+    private List<String> mods;
+
+    @PostConstruct
+    private void splitMods() {
+        mods = List.of(supportedMods.split(","));
+    }
 
     public MongoClientURI getMongoUri() {
         return new MongoClientURI(mongoUri);
     }
 
+    /**
+     * @param options Client options to apply on top of the ones in the connection string, such as event listeners
+     * @return The connection string along with the options
+     */
+    public MongoClientURI getMongoUri(MongoClientOptions.Builder options) {
+        return new MongoClientURI(mongoUri, options);
+    }
+
     public String getMongoDatabaseName() {
         return mongoDatabase;
     }
@@ -47,15 +117,91 @@ public class Config {
         return logfilePath;
     }
 
-    public ArrayList<String> getMods() {
-        return new ArrayList<String>(Arrays.asList(supportedMods.split(",")));
+    public int getLogBufferSize() {
+        return logBufferSize;
+    }
+
+    public int getRequestLogPerSecond() {
+        return requestLogPerSecond;
+    }
+
+    public List<String> getMods() {
+        return mods;
+    }
+
+    public long getCatalogRefreshSeconds() {
+        return catalogRefreshSeconds;
+    }
+
+    public int getSearchCacheSize() {
+        return searchCacheSize;
+    }
+
+    public int getPageCacheSize() {
+        return pageCacheSize;
+    }
+
+    public int getProjectionCacheSize() {
+        return projectionCacheSize;
+    }
+
+    public int getCompressionMinBytes() {
+        return compressionMinBytes;
+    }
+
+    public int getFanOutThreads() {
+        return fanOutThreads;
+    }
+
+    public long getFanOutTimeoutMillis() {
+        return fanOutTimeoutMillis;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public int getRateLimitPerSecond() {
+        return rateLimitPerSecond;
+    }
+
+    public int getRateLimitBurst() {
+        return rateLimitBurst;
+    }
+
+    public int getMaxFullScans() {
+        return maxFullScans;
+    }
+
+    /**
+     * @return Where the catalog is read from, either {@value #MONGO_STORAGE} or {@value #EMBEDDED_STORAGE}
+     * @throws IllegalStateException If the configured storage isn't one of those
+     */
+    public String getStorage() {
+        final String STORAGE = storage.trim().toLowerCase();
+        if (!STORAGE.equals(MONGO_STORAGE) && !STORAGE.equals(EMBEDDED_STORAGE)) {
+            throw new IllegalStateException("[ERROR] Unknown config.STORAGE '" + storage + "', expected " + MONGO_STORAGE + " or " + EMBEDDED_STORAGE);
+        }
+        return STORAGE;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath.trim();
+    }
+
+    public int getIngestBatchSize() {
+        return ingestBatchSize;
+    }
+
+    public long getIngestTimeoutMillis() {
+        return ingestTimeoutMillis;
     }
 
-    public static ArrayList<String> getTypes() {
+    public static List<String> getTypes() {
         return TYPES;
     }
 
-    public static ArrayList<Character> getSpecialChars() {
+    public static String getSpecialChars() {
         return SPECIAL_MONGO_CHARS;
     }
 }
@@ -0,0 +1,144 @@
+package com.api.main;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.util.DigestUtils;
+
+/**
+ * The changes between the configs the data files held at the last update and the configs they hold now, matched by mod and class name and compared by content hash.
+ * Every data file is diffed at once, so a class that moves between two files of the same mod is unchanged. All copies of a class that appears more than once in a mod are compared together, and a changed class has every copy deleted and written again.
+ */
+public class ConfigDiff {
+    private final Map<String, List<Document>> inserts = new HashMap<String, List<Document>>();
+    private final Map<String, List<String>> deletes = new HashMap<String, List<String>>();
+    private int added;
+    private int changed;
+    private int removed;
+    private int unchanged;
+
+    /**
+     * @param previous The hash of each config in the data files as of the last update, as {@code {mod, class, hash}} entries
+     * @param configs The configs in the data files now
+     */
+    public ConfigDiff(List<Document> previous, List<Document> configs) {
+        final Map<String, List<String>> PREVIOUS = new HashMap<String, List<String>>();
+        final Map<String, String[]> NAMES = new HashMap<String, String[]>();
+        for (Document entry : previous) {
+            final String KEY = keyOf(entry.getString("mod"), entry.getString("class"));
+            PREVIOUS.computeIfAbsent(KEY, key -> new ArrayList<String>()).add(entry.getString("hash"));
+            NAMES.putIfAbsent(KEY, new String[] {entry.getString("mod"), entry.getString("class")});
+        }
+        final Map<String, List<Document>> CURRENT = new LinkedHashMap<String, List<Document>>();
+        final Map<String, List<String>> CURRENT_HASHES = new HashMap<String, List<String>>();
+        for (Document config : configs) {
+            final String KEY = keyOf(IngestionPipeline.modOf(config), CatalogSlice.classOf(config));
+            CURRENT.computeIfAbsent(KEY, key -> new ArrayList<Document>()).add(config);
+            CURRENT_HASHES.computeIfAbsent(KEY, key -> new ArrayList<String>()).add(hashOf(config));
+        }
+
+        for (Map.Entry<String, List<Document>> copies : CURRENT.entrySet()) {
+            final List<String> HASHES = CURRENT_HASHES.get(copies.getKey());
+            final List<String> PREVIOUS_HASHES = PREVIOUS.remove(copies.getKey());
+            if (PREVIOUS_HASHES != null) {
+                HASHES.sort(null);
+                PREVIOUS_HASHES.sort(null);
+                if (HASHES.equals(PREVIOUS_HASHES)) {
+                    unchanged++;
+                    continue;
+                }
+                changed++;
+            } else {
+                added++;
+            }
+
+            // Added classes are cleared as well, so a retried update never leaves extra copies behind
+            final Document FIRST = copies.getValue().get(0);
+            final String MOD = IngestionPipeline.modOf(FIRST);
+            deletes.computeIfAbsent(MOD, key -> new ArrayList<String>()).add(CatalogSlice.classOf(FIRST));
+            inserts.computeIfAbsent(MOD, key -> new ArrayList<Document>()).addAll(copies.getValue());
+        }
+
+        for (String key : PREVIOUS.keySet()) {
+            final String[] NAME = NAMES.get(key);
+            deletes.computeIfAbsent(NAME[0], mod -> new ArrayList<String>()).add(NAME[1]);
+            removed++;
+        }
+    }
+
+    /**
+     * @param config A config
+     * @return MD5 hex digest of the config's JSON
+     */
+    public static String hashOf(Document config) {
+        return DigestUtils.md5DigestAsHex(config.toJson().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param configs The configs in a data file
+     * @return The hash of each config, as {@code {mod, class, hash}} entries to compare the next update against
+     */
+    public static List<Document> hashesOf(List<Document> configs) {
+        final List<Document> HASHES = new ArrayList<Document>(configs.size());
+        for (Document config : configs) {
+            HASHES.add(hashEntryOf(config));
+        }
+        return HASHES;
+    }
+
+    /**
+     * @param config A config
+     * @return The hash of the config as a {@code {mod, class, hash}} entry
+     */
+    public static Document hashEntryOf(Document config) {
+        return new Document("mod", IngestionPipeline.modOf(config)).append("class", CatalogSlice.classOf(config)).append("hash", hashOf(config));
+    }
+
+    private static String keyOf(String mod, String className) {
+        return mod + "\u0000" + className;
+    }
+
+    /**
+     * @return Every copy of the added and changed configs, keyed by mod, to be written once their class names are deleted
+     */
+    public Map<String, List<Document>> getInserts() {
+        return inserts;
+    }
+
+    /**
+     * @return The class names of the added, changed and removed configs, keyed by mod, to be deleted before the inserts are written
+     */
+    public Map<String, List<String>> getDeletes() {
+        return deletes;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getChanged() {
+        return changed;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public boolean isEmpty() {
+        return added == 0 && changed == 0 && removed == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d added, %d changed, %d removed, %d unchanged", added, changed, removed, unchanged);
+    }
+}
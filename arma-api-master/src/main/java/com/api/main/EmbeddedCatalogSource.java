@@ -0,0 +1,84 @@
+package com.api.main;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bson.Document;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Catalog source backed by the data files bundled on the classpath ({@code data/*.json}), for read-only nodes that run without a mongo instance.
+ * The bundled files can't change while the application is running, so they are only parsed by the first {@link #refresh()}.
+ */
+public class EmbeddedCatalogSource implements CatalogSource {
+    private static Logger LOGGER = Logger.getLogger(EmbeddedCatalogSource.class.getName());
+    public static final String DATA_FILES = "classpath*:data/*.json";
+
+    private final IngestionPipeline pipeline;
+    private final String location;
+    private volatile Map<String, List<Document>> modContents = null;
+
+    /**
+     * @param pipeline Pipeline to parse the data files with
+     */
+    public EmbeddedCatalogSource(IngestionPipeline pipeline) {
+        this(pipeline, DATA_FILES);
+    }
+
+    /**
+     * @param pipeline Pipeline to parse the data files with
+     * @param location Resource pattern matching the data files
+     */
+    public EmbeddedCatalogSource(IngestionPipeline pipeline, String location) {
+        this.pipeline = pipeline;
+        this.location = location;
+    }
+
+    /**
+     * Parses every bundled data file into configs grouped by mod, unless they have already been parsed.
+     * @throws Exception If a data file cannot be read or parsed
+     */
+    @Override
+    public synchronized void refresh() throws Exception {
+        if (modContents != null) {
+            return;
+        }
+
+        final long START = System.currentTimeMillis();
+        final Map<String, List<Document>> MOD_CONTENTS = new HashMap<String, List<Document>>();
+        final Resource[] RESOURCES = new PathMatchingResourcePatternResolver().getResources(location);
+        for (Resource resource : RESOURCES) {
+            IngestionPipeline.FileReport report = pipeline.ingest(resource.getFilename(), resource.getInputStream(), (mod, batch) ->
+                MOD_CONTENTS.computeIfAbsent(mod, key -> new ArrayList<Document>()).addAll(batch)
+            );
+            LOGGER.log(Level.INFO, "[INFO] Loaded bundled data file " + report);
+        }
+        if (RESOURCES.length == 0) {
+            throw new IOException("No bundled data files found at " + location);
+        }
+
+        MOD_CONTENTS.replaceAll((mod, configs) -> Collections.unmodifiableList(configs));
+        modContents = Collections.unmodifiableMap(MOD_CONTENTS);
+        LOGGER.log(Level.INFO, String.format("[INFO] Loaded %d bundled data files with %d mods in %dms", RESOURCES.length, MOD_CONTENTS.size(), System.currentTimeMillis() - START));
+    }
+
+    /**
+     * @return A task returning the parsed configs of each mod, keyed by mod name
+     */
+    @Override
+    public Map<String, Callable<List<Document>>> readers() {
+        final Map<String, Callable<List<Document>>> READERS = new HashMap<String, Callable<List<Document>>>();
+        if (modContents != null) {
+            modContents.forEach((mod, configs) -> READERS.put(mod, () -> configs));
+        }
+        return READERS;
+    }
+}
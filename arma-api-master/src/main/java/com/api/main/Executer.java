@@ -2,84 +2,174 @@ package com.api.main;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.FileHandler;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.logging.SimpleFormatter;
-import java.util.stream.Collectors;
+
+import javax.servlet.http.HttpServletResponse;
 
 import com.mongodb.MongoClient;
-import com.mongodb.client.MongoCollection;
+import com.mongodb.MongoClientOptions;
 import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.model.Filters;
 
-import org.bson.Document;
 import org.json.simple.parser.ParseException;
 import org.springframework.boot.ExitCodeGenerator;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.autoconfigure.metrics.mongo.MongoMetricsAutoConfiguration;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
 import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 @SpringBootApplication
-@EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class})
+@EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class, MongoMetricsAutoConfiguration.class})
 @RestController
 public class Executer {
     private static MongoDatabase DATABASE;
     private static Logger LOGGER = Logger.getLogger(Executer.class.getName());
+    private static Logger APPLICATION_LOGGER = Logger.getLogger(Executer.class.getPackageName());
     private static FileHandler HANDLER;
+    private static AsyncLogHandler ASYNC_HANDLER;
+    private static LogSampler REQUEST_LOG;
     private static Config config;
+    private static CollectionRegistry REGISTRY;
+    private static CatalogSource SOURCE;
+    private static RequestValidator VALIDATOR;
+    private static CatalogCache CATALOG;
+    private static FanOutExecutor FAN_OUT;
+    private static Admission ADMISSION;
+    private static final long CATALOG_LOADING_RETRY_SECONDS = 5;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    static final Telemetry.Endpoint CLASSES_METERS = Telemetry.endpoint("/classes");
+    static final Telemetry.Endpoint SEARCH_METERS = Telemetry.endpoint("/classes/search");
+    static final Telemetry.Endpoint BATCH_METERS = Telemetry.endpoint("/classes/batch");
+    static final Telemetry.Endpoint QUERY_METERS = Telemetry.endpoint("/classes/query");
 
     public static void main(String[] args) throws FileNotFoundException, IOException, ParseException, Exception {
         ApplicationContext context = SpringApplication.run(Executer.class, args);
         config = context.getBean(Config.class);
+        VALIDATOR = new RequestValidator(config.getMods(), Config.getTypes(), Config.getSpecialChars());
 
-        // Setup logging
+        // Setup logging, every logger in the application writes to the log file and console through a buffer so logging never blocks on disk
+        final List<Handler> TARGETS = new ArrayList<Handler>(Arrays.asList(Logger.getLogger("").getHandlers()));
         try {
             LOGGER.setLevel(Level.INFO);
             HANDLER = new FileHandler(config.getLogfilePath());
-            LOGGER.addHandler(HANDLER);
             SimpleFormatter formatter = new SimpleFormatter();
             HANDLER.setFormatter(formatter);
+            TARGETS.add(HANDLER);
         } catch (IOException e) {
             System.err.println("[ERROR] Failed to initialise File Handler for logging");
             e.printStackTrace();
         }
+        ASYNC_HANDLER = new AsyncLogHandler(config.getLogBufferSize(), TARGETS);
+        APPLICATION_LOGGER.addHandler(ASYNC_HANDLER);
+        APPLICATION_LOGGER.setUseParentHandlers(false);
+        REQUEST_LOG = new LogSampler(config.getRequestLogPerSecond());
+        Telemetry.logging(ASYNC_HANDLER, REQUEST_LOG);
 
-        // Connect to target mongo instance and database
-        final MongoClient MONGO_CLIENT = new MongoClient(config.getMongoUri());
-        DATABASE = MONGO_CLIENT.getDatabase(config.getMongoDatabaseName());
-
-        // Run the updater if requested
-        if (Arrays.asList(args).contains("--updater")) {
-            try {
-                if (new Updater().update(MONGO_CLIENT, DATABASE) == true) {
-                    LOGGER.log(Level.INFO, "[SUCCESS] Updater has successfully backed up and updated all collections in the database!");
-                } else {
-                    throw new Exception("[ERROR] Updater failed to backup and/or update all collections in the database. See log for more details...");
-                }
-            } catch (Exception e) {
-                LOGGER.log(Level.SEVERE, "[ERROR] Updater threw an exception, see log for details");
-                throw e;
-            } finally {
-                // Close after update completes
-                MONGO_CLIENT.close();
-                SpringApplication.exit(context, new ExitCodeGenerator() {
-                    @Override
-                    public int getExitCode() {
-                        // Return the error code
-                        return 0;
+        CATALOG = new CatalogCache(config.getSearchCacheSize(), config.getPageCacheSize(), config.getProjectionCacheSize());
+        ADMISSION = new Admission(config.getRateLimitPerSecond(), config.getRateLimitBurst(), config.getMaxFullScans());
+        Telemetry.admission(ADMISSION, CATALOG);
+        FAN_OUT = new FanOutExecutor(config.getFanOutThreads());
+        final IngestionPipeline PIPELINE = new IngestionPipeline(FAN_OUT, config.getIngestBatchSize(), config.getIngestTimeoutMillis());
+        final boolean EMBEDDED = config.getStorage().equals(Config.EMBEDDED_STORAGE);
+
+        if (EMBEDDED) {
+            // Serve the bundled data files, or a snapshot of them if one is configured, no mongo instance is needed
+            if (Arrays.asList(args).contains("--updater") || Arrays.asList(args).contains("--rollback")) {
+                throw new Exception("[ERROR] The updater requires mongo storage, set config.STORAGE=mongo to run it");
+            }
+            SOURCE = config.getSnapshotPath().isEmpty() ? new EmbeddedCatalogSource(PIPELINE) : new SnapshotCatalogSource(Paths.get(config.getSnapshotPath()));
+        } else {
+            // Connect to target mongo instance and database
+            final MongoClient MONGO_CLIENT = new MongoClient(config.getMongoUri(MongoClientOptions.builder().addConnectionPoolListener(new MongoPoolMetrics(Telemetry.registry()))));
+            DATABASE = MONGO_CLIENT.getDatabase(config.getMongoDatabaseName());
+            REGISTRY = new CollectionRegistry(new MongoCollectionStore(DATABASE));
+            SOURCE = REGISTRY;
+
+            // Run the updater, or roll back the last update, if requested. Either one only moves the version pointer, running APIs
+            // keep serving the catalog they hold until their next refresh, which is up to config.CATALOG_REFRESH_SECONDS (600 by default) later
+            if (Arrays.asList(args).contains("--updater") || Arrays.asList(args).contains("--rollback")) {
+                try {
+                    if (Arrays.asList(args).contains("--rollback")) {
+                        REGISTRY.rollback();
+                    } else if (Arrays.asList(args).contains("--delta")) {
+                        if (new Updater().delta(REGISTRY, PIPELINE) == true) {
+                            LOGGER.log(Level.INFO, "[SUCCESS] Updater has successfully published a new version of the collections with every changed data file applied!");
+                        } else {
+                            throw new Exception("[ERROR] Updater failed to apply the changed data files to a new version of the collections, the live version is unchanged. See log for more details...");
+                        }
+                    } else if (new Updater().update(REGISTRY, PIPELINE) == true) {
+                        LOGGER.log(Level.INFO, "[SUCCESS] Updater has successfully loaded and published a new version of the collections in the database!");
+                    } else {
+                        throw new Exception("[ERROR] Updater failed to load a new version of the collections in the database, the live version is unchanged. See log for more details...");
                     }
-                });
+                    LOGGER.log(Level.INFO, config.getCatalogRefreshSeconds() > 0
+                        ? String.format("[INFO] Running APIs serve version %d from their next catalog refresh, at most %d seconds from now", REGISTRY.getVersion(), config.getCatalogRefreshSeconds())
+                        : String.format("[INFO] Running APIs only load the catalog at startup, restart them to serve version %d", REGISTRY.getVersion()));
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "[ERROR] Updater threw an exception, see log for details");
+                    throw e;
+                } finally {
+                    // Close after update completes
+                    MONGO_CLIENT.close();
+                    SpringApplication.exit(context, new ExitCodeGenerator() {
+                        @Override
+                        public int getExitCode() {
+                            // Return the error code
+                            return 0;
+                        }
+                    });
+                }
+                return;
             }
         }
+
+        // Fill the catalog cache and keep it in step with the updater, which runs as its own process. The bundled data files of an embedded node never change so it is only filled once
+        SOURCE.refresh();
+        CATALOG.reload(SOURCE, FAN_OUT, config.getFanOutTimeoutMillis());
+        if (config.getCatalogRefreshSeconds() > 0 && !EMBEDDED) {
+            ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "catalog-refresher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            refresher.scheduleWithFixedDelay(() -> {
+                try {
+                    SOURCE.refresh();
+                    CATALOG.reload(SOURCE, FAN_OUT, config.getFanOutTimeoutMillis());
+                } catch (Exception e) {
+                    LOGGER.log(Level.SEVERE, "[ERROR] Failed to refresh the catalog cache, continuing to serve the previous catalog", e);
+                }
+            }, config.getCatalogRefreshSeconds(), config.getCatalogRefreshSeconds(), TimeUnit.SECONDS);
+        }
     }
 
     /**
@@ -88,72 +178,42 @@ public class Executer {
      * @param type A type to filter for (e.g. weapon, vest, headgear)
      * @param page Pagination page number
      * @param size Pagination page size (max number of items in the json array on each page)
-     * @return A string representation of JSON list containing the filtered configs
+     * @param after Keyset cursor, the class name of the last config on the previous page. When given the configs are wrapped in an envelope with the total count and the next cursor, and {@code page} is ignored
+     * @param stream If true (or if the request accepts {@code application/x-ndjson}) the configs are streamed one per line as newline delimited JSON instead
+     * @param fields Comma separated fields to include in each config (e.g. {@code class,name,count}), every field if not given
+     * @param compact If true each config is written without whitespace
+     * @param request The incoming request, used to answer conditional requests with a 304
+     * @return A JSON list containing the filtered configs, or an envelope containing that list if {@code after} was given
      * @throws Exception The user has provided a mod or type that isn't valid
      */
     @GetMapping(value = {"/classes", "/classes/{mod}"})
-    public String classes (
+    public ResponseEntity<byte[]> classes (
         @PathVariable(required = false, value = "mod") String mod,
         @RequestParam(required = false, value = "type") String type,
         @RequestParam(required = false, value = "page", defaultValue = "0") Integer page,
-        @RequestParam(required = false, value = "size", defaultValue = "-1") Integer size
+        @RequestParam(required = false, value = "size", defaultValue = "-1") Integer size,
+        @RequestParam(required = false, value = "after") String after,
+        @RequestParam(required = false, value = "stream", defaultValue = "false") Boolean stream,
+        @RequestParam(required = false, value = "fields") String fields,
+        @RequestParam(required = false, value = "compact", defaultValue = "false") Boolean compact,
+        WebRequest request
     ) throws Exception {
-        LOGGER.log(Level.INFO, String.format("Executing /classes endpoint with parameters %s (mod) and %s (type) and %s (page) and %s (size)", mod, type, page, size));
-
-        // Check user input
-        final String filteredMod = mod == "" || mod == null ? "" : escapeUserInput(mod);
-        final String filteredType = type == "" || type == null ? "" : escapeUserInput(type);
-
-        // Verify params
-        if (!config.getMods().contains(filteredMod) && filteredMod != "") {
-            throw new Exception(String.format("Unidentified mod (%s). Available values are %s", filteredMod, config.getMods().toString()));
-        }
-        if (!Config.getTypes().contains(filteredType) && filteredType != "") {
-            throw new Exception(String.format("Unidentified object type (%s). Available values are %s", filteredType, Config.getTypes().toString()));
+        if (sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes mod={0} type={1} page={2,number,#} size={3,number,#} after={4}", new Object[] {mod, type, page, size, after});
         }
 
-        // Filter db by keywords or return all
-        ArrayList<Document> dbContents = new ArrayList<Document>();
-        for (String collectionName : DATABASE.listCollectionNames()) {
-            MongoCollection<Document> modContents = retrieveCollection(collectionName);
+        // Escape and verify params
+        final long START = System.nanoTime();
+        final String filteredMod = VALIDATOR.mod(mod);
+        final String filteredType = VALIDATOR.type(type);
+        final long VALIDATED = CLASSES_METERS.validated(START);
 
-            if (collectionName.equals("data." + filteredMod)) {
-                dbContents.addAll(filterByType(modContents, filteredType));
-
-                // Break so we only return a singular mod spec
-                break;
-            } else if (filteredMod.isEmpty()) {
-                dbContents.addAll(filterByType(modContents, filteredType));
-            } else {
-                // We haven't reached the requested mod yet
-                continue;
-            }
-        }
+        // Filter cached catalog by keywords or return all, then keep only the requested fields
+        final CatalogSlice dbContents = project(retrieveCatalog().get(filteredMod, filteredType), fields, compact);
+        final long LOOKED_UP = CLASSES_METERS.lookedUp(VALIDATED);
 
-        // Prettify and respond
-        if (size == -1) {
-            return String.valueOf(dbContents
-                .stream()
-                .distinct()
-                .map(typeDoc -> typeDoc.toJson())
-                .sorted()
-                .collect(Collectors.toList())
-            );
-        } else {
-            Integer pageLimter = size * page;
-            if (page == 0) {
-                pageLimter = 0;
-            }
-            return String.valueOf(dbContents
-                .stream()
-                .skip(pageLimter)
-                .limit(size)
-                .distinct()
-                .map(typeDoc -> typeDoc.toJson())
-                .sorted()
-                .collect(Collectors.toList())
-            );
-        }
+        // Respond with the pre-serialized body
+        return respond(dbContents, page, size, after, stream, request, CLASSES_METERS, LOOKED_UP);
     }
 
     /**
@@ -161,115 +221,435 @@ public class Executer {
      * @param term The search term. It can be a classname, a config key or a config value
      * @param page Pagination page number
      * @param size Pagination page size (max number of items in the json array on each page)
-     * @return A string representation of JSON list containing the filtered configs
+     * @param after Keyset cursor, the class name of the last config on the previous page. When given the configs are wrapped in an envelope with the total count and the next cursor, and {@code page} is ignored
+     * @param stream If true (or if the request accepts {@code application/x-ndjson}) the configs are streamed one per line as newline delimited JSON instead
+     * @param fields Comma separated fields to include in each config (e.g. {@code class,name,count}), every field if not given
+     * @param compact If true each config is written without whitespace
+     * @param request The incoming request, used to answer conditional requests with a 304
+     * @return A JSON list containing the filtered configs, or an envelope containing that list if {@code after} was given
      * @throws Exception If a collection cannot be found or is malformed
      */
     @GetMapping(value = {"/classes/search/{term}"})
-    public String search (
+    public ResponseEntity<byte[]> search (
         @PathVariable(required = true, value = "term") String term,
         @RequestParam(required = false, value = "page", defaultValue = "0") Integer page,
-        @RequestParam(required = false, value = "size", defaultValue = "-1") Integer size
+        @RequestParam(required = false, value = "size", defaultValue = "-1") Integer size,
+        @RequestParam(required = false, value = "after") String after,
+        @RequestParam(required = false, value = "stream", defaultValue = "false") Boolean stream,
+        @RequestParam(required = false, value = "fields") String fields,
+        @RequestParam(required = false, value = "compact", defaultValue = "false") Boolean compact,
+        WebRequest request
     ) throws Exception {
-        LOGGER.log(Level.INFO, String.format("Executing /classes/search endpoint with parameters %s (term) and %s (page) and %s (size)", term, page, size));
+        if (sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/search term={0} page={1,number,#} size={2,number,#} after={3}", new Object[] {term, page, size, after});
+        }
 
         // Escape user input
-        final String filteredTerm = escapeUserInput(term);
-
-        // Match using Bson filter
-        ArrayList<Document> matchedClasses = new ArrayList<Document>();
-        for (String modName : DATABASE.listCollectionNames()) {
-            ArrayList<Document> filteredContents = new ArrayList<Document>();
-            try {
-                // TODO: This will need updating as we add more numeric fields
-                retrieveCollection(modName).find(Filters.or(
-                    Filters.eq("count", Long.parseLong(filteredTerm)),
-                    Filters.eq("weight", Long.parseLong(filteredTerm))
-                )).into(filteredContents);
-            } catch (NumberFormatException e) {
-                retrieveCollection(modName).find(Filters.text(filteredTerm)).into(filteredContents);
-            }
+        final long START = System.nanoTime();
+        final String filteredTerm = VALIDATOR.escape(term);
+        final long VALIDATED = SEARCH_METERS.validated(START);
+
+        // Match against the cached catalog
+        final CatalogSlice matchedClasses = project(retrieveCatalog().search(filteredTerm), fields, compact);
+        final long LOOKED_UP = SEARCH_METERS.lookedUp(VALIDATED);
+
+        // Respond with the pre-serialized body
+        return respond(matchedClasses, page, size, after, stream, request, SEARCH_METERS, LOOKED_UP);
+    }
+
+    /**
+     * A query route for the class list, this filters the cached catalog by the values of any config field and counts the matching configs per value of some fields (facets), so clients don't need to download whole slices to do either.
+     * Filters are given as repeated {@code filter} parameters, every returned config matches all of them: {@code field:value} for equality, {@code field:value|value} for any of several values, and {@code field>n}, {@code field>=n}, {@code field<n} or {@code field<=n} for numeric ranges.
+     * @param facets Comma separated fields to count the matching configs per value of (e.g. {@code mod,type,subtype}), empty for no counts
+     * @param page Pagination page number
+     * @param size Pagination page size, use 0 to only receive the counts
+     * @param after Keyset cursor, the class name of the last config on the previous page, {@code page} is ignored when given
+     * @param fields Comma separated fields to include in each config (e.g. {@code class,name,count}), every field if not given
+     * @param compact If true each config is written without whitespace
+     * @param request The incoming request, holding the filters and used to answer conditional requests with a 304
+     * @return A JSON object holding the total number of matching configs, the facet counts and the matching configs in class name order
+     * @throws Exception If a filter or the pagination parameters are invalid
+     */
+    @GetMapping(value = {"/classes/query"})
+    public ResponseEntity<byte[]> query (
+        @RequestParam(required = false, value = "facets", defaultValue = "mod,type,subtype") String facets,
+        @RequestParam(required = false, value = "page", defaultValue = "0") Integer page,
+        @RequestParam(required = false, value = "size", defaultValue = "-1") Integer size,
+        @RequestParam(required = false, value = "after") String after,
+        @RequestParam(required = false, value = "fields") String fields,
+        @RequestParam(required = false, value = "compact", defaultValue = "false") Boolean compact,
+        WebRequest request
+    ) throws Exception {
+        // Filters are read as they were sent, binding them to a list would split values at commas
+        final String[] FILTERS = request.getParameterValues("filter");
+        final List<String> FILTER_LIST = FILTERS == null ? List.of() : Arrays.asList(FILTERS);
+        if (sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/query filters={0} facets={1} page={2,number,#} size={3,number,#} after={4}", new Object[] {FILTER_LIST, facets, page, size, after});
+        }
+
+        final JsonBody BODY = resolveQuery(FILTER_LIST, facets, page, size, after, fields, compact, QUERY_METERS);
+        final boolean GZIP = gzip(BODY, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        final String ETAG = GZIP ? BODY.getGzipEtag() : BODY.getEtag();
+        if (request.checkNotModified(ETAG)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(ETAG)
+            .headers(encodingHeaders(GZIP))
+            .headers(staleModsHeader())
+            .body(GZIP ? BODY.getGzipped() : BODY.getBytes());
+    }
 
-            // Add to final doc if match is found
-            if (filteredContents != null) {
-                matchedClasses.addAll(filteredContents);
+    /**
+     * Validates the filters and facets of a query, then answers it from the facet index of the cached catalog. Results and their bodies are cached, so repeating a query only looks it up.
+     * @param filters The filter expressions, see {@link #query}
+     * @param facets Comma separated fields to count
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for every matching config
+     * @param after Keyset cursor, or null to page by number
+     * @param fields Comma separated fields to include in each config, or null for every field
+     * @param compact True to write each config without whitespace
+     * @param meters The meters of the endpoint
+     * @return The serialized query envelope
+     * @throws Exception If a filter or the pagination parameters are invalid
+     */
+    static JsonBody resolveQuery(List<String> filters, String facets, Integer page, Integer size, String after, String fields, Boolean compact, Telemetry.Endpoint meters) throws Exception {
+        checkPagination(page, size);
+
+        // Escape and parse every filter and facet
+        final long START = System.nanoTime();
+        final List<FacetIndex.Filter> PARSED = new ArrayList<FacetIndex.Filter>(filters.size());
+        for (String filter : filters) {
+            PARSED.add(FacetIndex.Filter.parse(VALIDATOR.escape(filter)));
+        }
+        final Set<String> FACETS = new LinkedHashSet<String>();
+        for (String facet : facets.split(",")) {
+            final String FILTERED = VALIDATOR.escape(facet.trim());
+            if (!FILTERED.isEmpty()) {
+                FACETS.add(FILTERED);
             }
         }
+        final long VALIDATED = meters.validated(START);
 
-        // Prettify and respond
-        if (size == -1) {
-            return String.valueOf(matchedClasses
-                .stream()
-                .distinct()
-                .map(typeDoc -> typeDoc.toJson())
-                .sorted()
-                .collect(Collectors.toList())
-            );
-        } else {
-            Integer pageLimter = size * page;
-            if (page == 0) {
-                pageLimter = 0;
+        final FacetIndex.Result RESULT = retrieveCatalog().query(PARSED);
+        final CatalogSlice SLICE = project(RESULT.getSlice(), fields, compact);
+        final long LOOKED_UP = meters.lookedUp(VALIDATED);
+
+        final JsonBody BODY = CATALOG.facets(RESULT, SLICE, new ArrayList<String>(FACETS), page, size, after);
+        meters.serialized(LOOKED_UP, BODY.getBytes().length, BODY.getCount());
+        return BODY;
+    }
+
+    /**
+     * A batch route for the class list, this resolves many class names in one request against an index of the cached catalog. Class names are matched exactly (ignoring case), not searched for.
+     * @param entries The classes to look up, each one either a class name (e.g. {@code "arifle_MX_F"}) or an object with a class name and a mod (e.g. {@code {"mod": "vanilla", "class": "arifle_MX_F"}})
+     * @param request The incoming request, used to compress the body if the client accepts gzip
+     * @return A JSON object holding the configs found for each entry, keyed by the class name (or {@code mod/class} for entries with a mod), and the entries that weren't found
+     * @throws Exception If an entry or mod is invalid or there are too many entries
+     */
+    @PostMapping(value = {"/classes/batch"})
+    public ResponseEntity<byte[]> batch (
+        @RequestBody List<Object> entries,
+        WebRequest request
+    ) throws Exception {
+        if (sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/batch entries={0,number,#}", new Object[] {entries.size()});
+        }
+
+        final JsonBody BODY = resolveBatch(entries, BATCH_METERS);
+        final boolean GZIP = gzip(BODY, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(encodingHeaders(GZIP))
+            .headers(staleModsHeader())
+            .body(GZIP ? BODY.getGzipped() : BODY.getBytes());
+    }
+
+    /**
+     * Validates every entry of a batch lookup, then resolves them all against the same class index. Entries that are requested more than once are only resolved once.
+     * @param entries The classes to look up
+     * @param meters The meters of the endpoint
+     * @return The serialized batch body
+     * @throws Exception If an entry or mod is invalid or there are too many entries
+     */
+    static JsonBody resolveBatch(List<?> entries, Telemetry.Endpoint meters) throws Exception {
+        if (entries.size() > config.getBatchMaxSize()) {
+            throw new Exception(String.format("Batch of %d classes exceeds the maximum of %d", entries.size(), config.getBatchMaxSize()));
+        }
+
+        // Escape and verify every entry before looking any of them up
+        final long START = System.nanoTime();
+        final List<String[]> LOOKUPS = new ArrayList<String[]>(entries.size());
+        for (Object entry : entries) {
+            LOOKUPS.add(batchEntry(entry));
+        }
+        final long VALIDATED = meters.validated(START);
+
+        final ClassIndex INDEX = retrieveCatalog().getClassIndex();
+        final Map<String, List<byte[]>> FOUND = new LinkedHashMap<String, List<byte[]>>();
+        final Set<String> MISSING = new LinkedHashSet<String>();
+        for (String[] lookup : LOOKUPS) {
+            final String KEY = lookup[0].isEmpty() ? lookup[1] : lookup[0] + "/" + lookup[1];
+            if (FOUND.containsKey(KEY) || MISSING.contains(KEY)) {
+                continue;
+            }
+            final List<byte[]> CONFIGS = INDEX.find(lookup[0], lookup[1]);
+            if (CONFIGS.isEmpty()) {
+                MISSING.add(KEY);
+            } else {
+                FOUND.put(KEY, CONFIGS);
             }
-            return String.valueOf(matchedClasses
-                .stream()
-                .skip(pageLimter)
-                .limit(size)
-                .distinct()
-                .map(typeDoc -> typeDoc.toJson())
-                .sorted()
-                .collect(Collectors.toList())
-            );
         }
+        final long LOOKED_UP = meters.lookedUp(VALIDATED);
+
+        final JsonBody BODY = JsonBody.ofBatch(FOUND, new ArrayList<String>(MISSING));
+        meters.serialized(LOOKED_UP, BODY.getBytes().length, BODY.getCount());
+        return BODY;
     }
 
     /**
-     * Retrieves a MongoDB collection based off the collection string
-     * @param collectionName The name of a collection to retrieve
-     * @return A MongoDB collection
-     * @throws Exception If the collection doesn't exist or is malformed
+     * @param entry An entry of a batch lookup
+     * @return The escaped mod (empty for any mod) and class name of the entry
+     * @throws Exception If the entry isn't a class name or an object with a class name, or its mod isn't supported
      */
-    private MongoCollection<Document> retrieveCollection(String collectionName) throws Exception {
-        ArrayList<String> collections = new ArrayList<String>();
-        DATABASE.listCollectionNames().into(collections);
-        if (collections.contains(collectionName)) {
-            return DATABASE.getCollection(collectionName);
-        } else {
-            throw new Exception(collectionName + " does not exist or is an unknown class type");
+    private static String[] batchEntry(Object entry) throws Exception {
+        if (entry instanceof String) {
+            return new String[] {"", VALIDATOR.escape((String) entry)};
+        }
+        if (entry instanceof Map && ((Map<?, ?>) entry).get("class") instanceof String) {
+            final Object MOD = ((Map<?, ?>) entry).get("mod");
+            return new String[] {VALIDATOR.mod(MOD == null ? null : String.valueOf(MOD)), VALIDATOR.escape((String) ((Map<?, ?>) entry).get("class"))};
+        }
+        throw new Exception(String.format("Invalid batch entry (%s). Entries must be a class name or an object with a class and optionally a mod", entry));
+    }
+
+    /**
+     * Responds with either the whole slice or a single page of it, using the serialized body held by the catalog cache. If the client already holds the same body (going by its {@code If-None-Match} header) a 304 is returned instead.
+     * Pages are cut from the slice in class name order, either by page number or by keyset cursor. The total number of matching configs is always sent in the {@code X-Total-Count} header.
+     * @param slice The configs to respond with
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @param after Keyset cursor, or null to page by number
+     * @param stream True if the configs should be streamed as newline delimited JSON
+     * @param request The incoming request
+     * @param meters The meters of the endpoint, the body is recorded as its serialization stage
+     * @param startNanos When the serialization stage started, from {@link System#nanoTime()}
+     * @return The response entity, or null if a 304 or a stream has been written
+     * @throws Exception If the pagination parameters are invalid
+     */
+    private ResponseEntity<byte[]> respond(CatalogSlice slice, Integer page, Integer size, String after, Boolean stream, WebRequest request, Telemetry.Endpoint meters, long startNanos) throws Exception {
+        checkPagination(page, size);
+
+        if (stream || acceptsNdjson(request)) {
+            final List<byte[]> SERIALIZED = serialized(slice, page, size, after);
+            meters.serialized(startNanos, streamNdjson(SERIALIZED, slice.size(), request), SERIALIZED.size());
+            return null;
         }
+
+        final JsonBody BODY = body(slice, page, size, after);
+        final boolean GZIP = gzip(BODY, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        final byte[] BYTES = GZIP ? BODY.getGzipped() : BODY.getBytes();
+        final String ETAG = GZIP ? BODY.getGzipEtag() : BODY.getEtag();
+        meters.serialized(startNanos, BYTES.length, BODY.getCount());
+
+        if (request.checkNotModified(ETAG)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(ETAG)
+            .header("X-Total-Count", String.valueOf(slice.size()))
+            .headers(encodingHeaders(GZIP))
+            .headers(staleModsHeader())
+            .body(BYTES);
     }
 
     /**
-     * Escapes a user input from the url path or request parameters to remove all special mongo charecters
-     * @param unfilteredInput The unfiltered user input straight from the url
-     * @return A filtered input without any special charecters added
+     * Narrows a slice down to the requested fields of each config, the projection is cached so it is only built once per catalog reload.
+     * @param slice The configs to respond with
+     * @param fields Comma separated fields to keep, or null to keep every field
+     * @param compact True to write each config without whitespace
+     * @return The projected slice, or the slice itself if nothing was requested
      */
-    private String escapeUserInput(String unfilteredInput) {
-        LOGGER.log(Level.INFO, "Escaping user input string: " + unfilteredInput);
-        String filteredInput = "";
-        for (int i = 0; i < unfilteredInput.length(); i++) {
-            char currentCharecter = unfilteredInput.charAt(i);
-            if (!Config.getSpecialChars().contains(currentCharecter)) {
-                filteredInput += currentCharecter;
+    static CatalogSlice project(CatalogSlice slice, String fields, Boolean compact) {
+        if (fields == null && !compact) {
+            return slice;
+        }
+        final Set<String> FIELDS = new LinkedHashSet<String>();
+        if (fields != null) {
+            for (String field : fields.split(",")) {
+                final String FILTERED = VALIDATOR.escape(field.trim());
+                if (!FILTERED.isEmpty()) {
+                    FIELDS.add(FILTERED);
+                }
             }
         }
-        return filteredInput;
+        return CATALOG.project(slice, new ArrayList<String>(FIELDS), compact);
     }
 
     /**
-     * Filters a given collection by a user requested type or retrieves all the types if user input is not given.
-     * @param collection The collection to search in
-     * @param type The config type to filter the collection by
-     * @return A list of all the documents in the collection that matches the type (or all if no type was given)
+     * Bodies are only compressed when they are large enough for it to pay off, and each body is compressed at most once.
+     * @param body The body to respond with
+     * @param acceptEncoding The {@code Accept-Encoding} header of the request
+     * @return True if the body should be sent gzip encoded
      */
-    private ArrayList<Document> filterByType(MongoCollection<Document> collection, String type) {
-        ArrayList<Document> filteredContents = new ArrayList<Document>();
-        if (type.isEmpty()) {
-            // Get all types
-            collection.find().into(filteredContents);
-        } else {
-            // Filter by type
-            collection.find(Filters.eq("type", type)).into(filteredContents);
+    static boolean gzip(JsonBody body, String acceptEncoding) {
+        return config.getCompressionMinBytes() >= 0 && body.getBytes().length >= config.getCompressionMinBytes() && JsonBody.acceptsGzip(acceptEncoding);
+    }
+
+    /**
+     * @param gzip True if the body is gzip encoded
+     * @return The {@code Vary} header, and the {@code Content-Encoding} header if the body is gzip encoded
+     */
+    static HttpHeaders encodingHeaders(boolean gzip) {
+        final HttpHeaders HEADERS = new HttpHeaders();
+        HEADERS.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            HEADERS.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return HEADERS;
+    }
+
+    /**
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @throws Exception If the pagination parameters are invalid
+     */
+    static void checkPagination(Integer page, Integer size) throws Exception {
+        if (size < -1 || page < 0) {
+            throw new Exception(String.format("Invalid pagination parameters %s (page) and %s (size)", page, size));
+        }
+    }
+
+    /**
+     * Retrieves the serialized body for the whole slice or a single page of it, from the catalog cache if it has been requested before.
+     * @param slice The configs to respond with
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @param after Keyset cursor, or null to page by number
+     * @return The serialized JSON array, or envelope if {@code after} was given
+     */
+    static JsonBody body(CatalogSlice slice, Integer page, Integer size, String after) {
+        if (after != null) {
+            return CATALOG.after(slice, after, size);
+        } else if (size == -1) {
+            return slice.getBody();
+        }
+        return CATALOG.page(slice, page, size);
+    }
+
+    /**
+     * @param slice The configs to respond with
+     * @param page Pagination page number
+     * @param size Pagination page size, -1 for the whole slice
+     * @param after Keyset cursor, or null to page by number
+     * @return The serialized configs of the whole slice or a single page of it, to be streamed one per line
+     */
+    static List<byte[]> serialized(CatalogSlice slice, Integer page, Integer size, String after) {
+        return after != null ? slice.serializedAfter(after, size) : slice.serializedPage(page, size);
+    }
+
+    /**
+     * Writes each serialized config straight to the response output stream on its own line, so no response sized buffer is ever built regardless of how many configs there are.
+     * @param serialized The serialized configs to write
+     * @param total The number of configs across every page
+     * @param request The incoming request
+     * @return The number of bytes written
+     * @throws IOException If the client goes away mid stream
+     */
+    private long streamNdjson(List<byte[]> serialized, int total, WebRequest request) throws IOException {
+        final HttpServletResponse RESPONSE = ((ServletWebRequest) request).getResponse();
+        RESPONSE.setStatus(HttpStatus.OK.value());
+        RESPONSE.setContentType(NDJSON.toString());
+        RESPONSE.setHeader("X-Total-Count", String.valueOf(total));
+        staleModsHeader().forEach((name, values) -> RESPONSE.setHeader(name, values.get(0)));
+
+        final OutputStream OUT = RESPONSE.getOutputStream();
+        long written = 0;
+        for (byte[] config : serialized) {
+            OUT.write(config);
+            OUT.write('\n');
+            written += config.length + 1;
         }
-        return filteredContents;
+        OUT.flush();
+        return written;
+    }
+
+    /**
+     * Reports mods whose configs may be out of date because their collection couldn't be read during the latest catalog reload.
+     * @return An {@code X-Stale-Mods} header listing the mods, or no headers if every mod is up to date
+     */
+    static HttpHeaders staleModsHeader() {
+        final HttpHeaders HEADERS = new HttpHeaders();
+        if (!CATALOG.getStaleMods().isEmpty()) {
+            HEADERS.set("X-Stale-Mods", String.join(",", CATALOG.getStaleMods()));
+        }
+        return HEADERS;
+    }
+
+    /**
+     * @param request The incoming request
+     * @return True if the request explicitly accepts newline delimited JSON
+     */
+    private boolean acceptsNdjson(WebRequest request) {
+        final String ACCEPT = request.getHeader(HttpHeaders.ACCEPT);
+        if (ACCEPT == null) {
+            return false;
+        }
+        for (MediaType mediaType : MediaType.parseMediaTypes(ACCEPT)) {
+            if (NDJSON.equalsTypeAndSubtype(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Serves the routes from the given configuration, validator, catalog and admission control in place of the ones {@link #main} sets up, so they can be exercised without a database.
+     * @param configuration The configuration of the routes, such as the compression threshold and batch size
+     * @param validator The validator for the user input of every request
+     * @param catalog The catalog cache to serve, null to answer as if it were still loading
+     * @param admission The admission control of the {@code /classes} routes, null to admit every request
+     */
+    static void serve(Config configuration, RequestValidator validator, CatalogCache catalog, Admission admission) {
+        config = configuration;
+        VALIDATOR = validator;
+        CATALOG = catalog;
+        ADMISSION = admission;
+    }
+
+    /**
+     * @return The validator for the user input of every request
+     */
+    static RequestValidator getValidator() {
+        return VALIDATOR;
+    }
+
+    /**
+     * Per request log lines are rate limited, so they are only built for the requests that are sampled.
+     * @return True if the current request should be logged
+     */
+    static boolean sampleRequestLog() {
+        return REQUEST_LOG != null && REQUEST_LOG.sample();
     }
 
+    /**
+     * @return The admission control of the {@code /classes} routes, or null until the application has started
+     */
+    static Admission getAdmission() {
+        return ADMISSION;
+    }
+
+    /**
+     * Retrieves the catalog cache that all requests are served from
+     * @return The catalog cache
+     * @throws RetryLaterException If the catalog has not finished loading yet
+     */
+    static CatalogCache retrieveCatalog() throws RetryLaterException {
+        if (CATALOG == null || !CATALOG.isLoaded()) {
+            throw new RetryLaterException(HttpStatus.SERVICE_UNAVAILABLE, CATALOG_LOADING_RETRY_SECONDS, "The catalog is still loading, please try again shortly");
+        }
+        return CATALOG;
+    }
 }
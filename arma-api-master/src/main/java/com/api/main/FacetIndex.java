@@ -0,0 +1,351 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+
+/**
+ * Columnar index over the top level fields of every config in the catalog, built once per catalog reload to filter configs by field values and count them per value (facets) without going through the configs themselves.
+ * Each field is stored as a column of dictionary codes, one per config. Fields with few distinct values (types, mods, counts) also keep the positions of the configs holding each value, fields where most values are unique (class names, descriptions) are matched by scanning their column instead.
+ * Fields with numeric values are also kept as a column of doubles for range filters. Nested values (arrays and documents) aren't indexed.
+ */
+public class FacetIndex {
+    public static final FacetIndex EMPTY = new FacetIndex(CatalogSlice.EMPTY);
+    // Fields with more distinct values than one per this many configs are scanned rather than given postings
+    private static final int MIN_CONFIGS_PER_VALUE = 8;
+
+    private final CatalogSlice all;
+    private final Map<String, Column> columns;
+
+    /**
+     * @param all Every config in the catalog, query results refer to configs by their position in this slice
+     */
+    public FacetIndex(CatalogSlice all) {
+        this.all = all;
+        final Map<String, ColumnBuilder> BUILDERS = new HashMap<String, ColumnBuilder>();
+        for (int position = 0; position < all.size(); position++) {
+            for (Map.Entry<String, Object> field : all.getConfigs().get(position).entrySet()) {
+                final String VALUE = valueOf(field.getValue());
+                if (VALUE != null) {
+                    BUILDERS.computeIfAbsent(field.getKey(), key -> new ColumnBuilder(all.size())).add(position, VALUE, field.getValue());
+                }
+            }
+        }
+
+        final Map<String, Column> COLUMNS = new HashMap<String, Column>(BUILDERS.size() * 2);
+        BUILDERS.forEach((field, builder) -> COLUMNS.put(field, builder.build()));
+        this.columns = COLUMNS;
+    }
+
+    /**
+     * @param value A config value
+     * @return The value as it is indexed, matched and counted, or null if it isn't indexed. Whole numbers are written without a fraction so that {@code 30} and {@code 30.0} are the same value
+     */
+    static String valueOf(Object value) {
+        if (value instanceof String || value instanceof Boolean) {
+            return String.valueOf(value);
+        }
+        if (value instanceof Number) {
+            final double NUMBER = ((Number) value).doubleValue();
+            return NUMBER == Math.rint(NUMBER) && Math.abs(NUMBER) < 1e15 ? String.valueOf((long) NUMBER) : String.valueOf(NUMBER);
+        }
+        return null;
+    }
+
+    /**
+     * Finds every config matching all of the filters.
+     * @param filters The filters to apply, every config matches if there are none
+     * @return The matching configs in class name order
+     */
+    public Result query(List<Filter> filters) {
+        final BitSet MATCHED = new BitSet(all.size());
+        MATCHED.set(0, all.size());
+        for (Filter filter : filters) {
+            final Column COLUMN = columns.get(filter.field);
+            if (COLUMN == null) {
+                MATCHED.clear();
+                break;
+            }
+            MATCHED.and(COLUMN.match(filter));
+        }
+
+        final List<Document> CONFIGS = new ArrayList<Document>(MATCHED.cardinality());
+        final List<byte[]> SERIALIZED = new ArrayList<byte[]>(MATCHED.cardinality());
+        for (int position = MATCHED.nextSetBit(0); position >= 0; position = MATCHED.nextSetBit(position + 1)) {
+            CONFIGS.add(all.getConfigs().get(position));
+            SERIALIZED.add(all.getSerialized().get(position));
+        }
+        return new Result(this, MATCHED, new CatalogSlice(CONFIGS, SERIALIZED, true));
+    }
+
+    /**
+     * @return The number of indexed fields
+     */
+    public int size() {
+        return columns.size();
+    }
+
+    /**
+     * A single condition on a field, either equality with one of several values ({@code field:value} or {@code field:value|value}) or a numeric range ({@code field>n}, {@code field>=n}, {@code field<n}, {@code field<=n}).
+     */
+    public static class Filter {
+        private static final Pattern EXPRESSION = Pattern.compile("([^:<>]+)(:|>=|<=|>|<)(.*)");
+
+        private final String field;
+        private final String operator;
+        private final String[] values;
+        private final double bound;
+
+        private Filter(String field, String operator, String[] values, double bound) {
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+            this.bound = bound;
+        }
+
+        /**
+         * @param expression An escaped filter expression, e.g. {@code type:Magazines} or {@code count>=30}
+         * @return The parsed filter
+         * @throws Exception If the expression isn't a valid filter
+         */
+        public static Filter parse(String expression) throws Exception {
+            final Matcher MATCHER = EXPRESSION.matcher(expression);
+            if (MATCHER.matches() && !MATCHER.group(3).isEmpty()) {
+                final String FIELD = MATCHER.group(1).trim();
+                final String OPERATOR = MATCHER.group(2);
+                final String VALUE = MATCHER.group(3).trim();
+                if (OPERATOR.equals(":")) {
+                    return new Filter(FIELD, OPERATOR, VALUE.split("\\|"), Double.NaN);
+                }
+                try {
+                    return new Filter(FIELD, OPERATOR, new String[0], Double.parseDouble(VALUE));
+                } catch (NumberFormatException e) {
+                    // Reported below
+                }
+            }
+            throw new Exception(String.format("Invalid filter (%s). Filters are field:value, field:value|value, field>n, field>=n, field<n or field<=n", expression));
+        }
+
+        /**
+         * @return The filter in a canonical form, filters that match the same configs have the same form
+         */
+        @Override
+        public String toString() {
+            if (operator.equals(":")) {
+                final String[] SORTED = values.clone();
+                Arrays.sort(SORTED);
+                return field + operator + String.join("|", SORTED);
+            }
+            return field + operator + bound;
+        }
+    }
+
+    /**
+     * The configs matching a query, along with their positions so their values can be counted from the columns.
+     */
+    public static class Result {
+        private final FacetIndex index;
+        private final BitSet matched;
+        private final CatalogSlice slice;
+
+        private Result(FacetIndex index, BitSet matched, CatalogSlice slice) {
+            this.index = index;
+            this.matched = matched;
+            this.slice = slice;
+        }
+
+        /**
+         * Counts the matching configs per value of each field.
+         * @param fields The fields to count the values of
+         * @return The counts for each field, most common value first (ties are broken by value). Fields that no config has are left empty
+         */
+        public Map<String, Map<String, Integer>> facets(List<String> fields) {
+            final Map<String, Map<String, Integer>> FACETS = new LinkedHashMap<String, Map<String, Integer>>();
+            for (String field : fields) {
+                final Column COLUMN = index.columns.get(field);
+                FACETS.put(field, COLUMN == null ? Map.of() : COLUMN.count(matched));
+            }
+            return FACETS;
+        }
+
+        /**
+         * @return The matching configs, in class name order
+         */
+        public CatalogSlice getSlice() {
+            return slice;
+        }
+    }
+
+    /**
+     * The values of a single field, as dictionary codes (-1 where a config doesn't have the field) and as numbers (NaN where the value isn't a number, null if the field never holds one).
+     * Postings are the positions of the configs holding each value, in order, or null if the field has too many distinct values for them to be worth keeping.
+     */
+    private static class Column {
+        private final String[] dictionary;
+        private final Map<String, Integer> codes;
+        private final int[] column;
+        private final int[][] postings;
+        private final double[] numbers;
+
+        private Column(String[] dictionary, Map<String, Integer> codes, int[] column, int[][] postings, double[] numbers) {
+            this.dictionary = dictionary;
+            this.codes = codes;
+            this.column = column;
+            this.postings = postings;
+            this.numbers = numbers;
+        }
+
+        private BitSet match(Filter filter) {
+            final BitSet MATCHED = new BitSet(column.length);
+            if (filter.operator.equals(":")) {
+                final BitSet CODES = new BitSet(dictionary.length);
+                for (String value : filter.values) {
+                    addCode(CODES, value);
+                    // A number can be written in several ways (e.g. 30 and 30.0), match it the way it was indexed as well
+                    try {
+                        addCode(CODES, valueOf(Double.parseDouble(value)));
+                    } catch (NumberFormatException e) {
+                        // Not a number, only matched as text
+                    }
+                }
+                if (postings != null) {
+                    for (int code = CODES.nextSetBit(0); code >= 0; code = CODES.nextSetBit(code + 1)) {
+                        for (int position : postings[code]) {
+                            MATCHED.set(position);
+                        }
+                    }
+                } else if (!CODES.isEmpty()) {
+                    for (int position = 0; position < column.length; position++) {
+                        if (column[position] >= 0 && CODES.get(column[position])) {
+                            MATCHED.set(position);
+                        }
+                    }
+                }
+                return MATCHED;
+            }
+
+            if (numbers == null) {
+                return MATCHED;
+            }
+            for (int position = 0; position < numbers.length; position++) {
+                final double NUMBER = numbers[position];
+                if (!Double.isNaN(NUMBER) && inRange(NUMBER, filter.operator, filter.bound)) {
+                    MATCHED.set(position);
+                }
+            }
+            return MATCHED;
+        }
+
+        private void addCode(BitSet matched, String value) {
+            final Integer CODE = codes.get(value);
+            if (CODE != null) {
+                matched.set(CODE);
+            }
+        }
+
+        private static boolean inRange(double number, String operator, double bound) {
+            switch (operator) {
+                case ">":
+                    return number > bound;
+                case ">=":
+                    return number >= bound;
+                case "<":
+                    return number < bound;
+                default:
+                    return number <= bound;
+            }
+        }
+
+        private Map<String, Integer> count(BitSet matched) {
+            final int[] COUNTS = new int[dictionary.length];
+            for (int position = matched.nextSetBit(0); position >= 0; position = matched.nextSetBit(position + 1)) {
+                if (column[position] >= 0) {
+                    COUNTS[column[position]]++;
+                }
+            }
+
+            final List<Integer> PRESENT = new ArrayList<Integer>();
+            for (int code = 0; code < COUNTS.length; code++) {
+                if (COUNTS[code] > 0) {
+                    PRESENT.add(code);
+                }
+            }
+            PRESENT.sort((first, second) -> COUNTS[first] != COUNTS[second] ? Integer.compare(COUNTS[second], COUNTS[first]) : dictionary[first].compareTo(dictionary[second]));
+
+            final Map<String, Integer> FACET = new LinkedHashMap<String, Integer>(PRESENT.size() * 2);
+            for (int code : PRESENT) {
+                FACET.put(dictionary[code], COUNTS[code]);
+            }
+            return FACET;
+        }
+    }
+
+    /**
+     * Collects the values of a field while the index is being built.
+     */
+    private static class ColumnBuilder {
+        private final List<String> dictionary = new ArrayList<String>();
+        private final Map<String, Integer> codes = new HashMap<String, Integer>();
+        private final int[] column;
+        private double[] numbers = null;
+
+        private ColumnBuilder(int size) {
+            this.column = new int[size];
+            Arrays.fill(column, -1);
+        }
+
+        private void add(int position, String value, Object raw) {
+            final int CODE = codes.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+            column[position] = CODE;
+            if (raw instanceof Number) {
+                if (numbers == null) {
+                    numbers = new double[column.length];
+                    Arrays.fill(numbers, Double.NaN);
+                }
+                numbers[position] = ((Number) raw).doubleValue();
+            }
+        }
+
+        private Column build() {
+            return new Column(dictionary.toArray(new String[0]), Map.copyOf(codes), column, postings(), numbers);
+        }
+
+        /**
+         * @return The positions of the configs holding each value, sized exactly from a count of each code, or null if the field has too many distinct values
+         */
+        private int[][] postings() {
+            if ((long) dictionary.size() * MIN_CONFIGS_PER_VALUE > column.length) {
+                return null;
+            }
+            final int[] COUNTS = new int[dictionary.size()];
+            for (int code : column) {
+                if (code >= 0) {
+                    COUNTS[code]++;
+                }
+            }
+            final int[][] POSTINGS = new int[COUNTS.length][];
+            for (int code = 0; code < COUNTS.length; code++) {
+                POSTINGS[code] = new int[COUNTS[code]];
+                COUNTS[code] = 0;
+            }
+            for (int position = 0; position < column.length; position++) {
+                final int CODE = column[position];
+                if (CODE >= 0) {
+                    POSTINGS[CODE][COUNTS[CODE]++] = position;
+                }
+            }
+            return POSTINGS;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.api.main;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a set of keyed tasks (e.g. one query per mod collection) concurrently on a bounded pool, so the total time tracks the slowest task rather than the sum of them all.
+ * Every call has a deadline, tasks that fail or are still running once it passes are reported alongside the results that did complete.
+ */
+public class FanOutExecutor {
+    private final ExecutorService pool;
+
+    /**
+     * @param threads Maximum number of tasks to run at once
+     */
+    public FanOutExecutor(int threads) {
+        final AtomicInteger THREAD_COUNT = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fan-out-" + THREAD_COUNT.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs every task concurrently and waits for them to complete, up to the deadline.
+     * @param <T> The result type of the tasks
+     * @param tasks Tasks keyed by a name to report them under
+     * @param timeoutMillis Deadline for all of the tasks, measured from when this method is called
+     * @return The results of the tasks that completed in time, and the reason each of the others didn't
+     */
+    public <T> Result<T> run(Map<String, Callable<T>> tasks, long timeoutMillis) {
+        final long DEADLINE = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        final Map<String, Future<T>> FUTURES = new LinkedHashMap<String, Future<T>>();
+        tasks.forEach((key, task) -> FUTURES.put(key, pool.submit(task)));
+
+        final Map<String, T> COMPLETED = new HashMap<String, T>();
+        final Map<String, String> FAILED = new HashMap<String, String>();
+        for (Map.Entry<String, Future<T>> future : FUTURES.entrySet()) {
+            try {
+                COMPLETED.put(future.getKey(), future.getValue().get(Math.max(0, DEADLINE - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.getValue().cancel(true);
+                FAILED.put(future.getKey(), String.format("timed out after %dms", timeoutMillis));
+            } catch (ExecutionException e) {
+                FAILED.put(future.getKey(), String.valueOf(e.getCause()));
+            } catch (InterruptedException e) {
+                future.getValue().cancel(true);
+                FAILED.put(future.getKey(), "interrupted");
+                Thread.currentThread().interrupt();
+            }
+        }
+        return new Result<T>(COMPLETED, FAILED);
+    }
+
+    /**
+     * Stops accepting tasks and interrupts any that are still running.
+     */
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * The outcome of a fan out, which may be partial.
+     * @param <T> The result type of the tasks
+     */
+    public static class Result<T> {
+        private final Map<String, T> completed;
+        private final Map<String, String> failed;
+
+        private Result(Map<String, T> completed, Map<String, String> failed) {
+            this.completed = Collections.unmodifiableMap(completed);
+            this.failed = Collections.unmodifiableMap(failed);
+        }
+
+        /**
+         * @return The results of every task that completed in time, keyed by task name
+         */
+        public Map<String, T> getCompleted() {
+            return completed;
+        }
+
+        /**
+         * @return The reason each of the remaining tasks failed, keyed by task name
+         */
+        public Map<String, String> getFailed() {
+            return failed;
+        }
+
+        public boolean isPartial() {
+            return !failed.isEmpty();
+        }
+    }
+}
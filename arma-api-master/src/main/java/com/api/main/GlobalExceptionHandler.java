@@ -2,6 +2,7 @@ package com.api.main;
 
 import java.time.LocalDateTime;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,4 +22,14 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         errors.setStatus(HttpStatus.NOT_FOUND.value());
         return new ResponseEntity<CustomErrorResponse> (errors, HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(RetryLaterException.class)
+    public ResponseEntity<CustomErrorResponse> customHandleRetryLater(RetryLaterException ex, WebRequest request) {
+        // Requests turned away because of load, the client should retry the same request later
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(ex.getMessage());
+        errors.setStatus(ex.getStatus().value());
+        return ResponseEntity.status(ex.getStatus()).header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds())).body(errors);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.api.main;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.bson.Document;
+
+/**
+ * Streams config objects out of JSON data files and hands them to a {@link BatchWriter} in per-mod batches. Files are read concurrently, each one with a streaming parser so only a single config and the pending batches are held in memory at a time.
+ * The content hash of each file and of each config in it are computed as it is streamed, for the delta updater to compare against.
+ */
+public class IngestionPipeline {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private final FanOutExecutor fanOut;
+    private final int batchSize;
+    private final long timeoutMillis;
+
+    /**
+     * @param fanOut Executor to read the files with
+     * @param batchSize Maximum number of configs sent to the writer at once
+     * @param timeoutMillis Deadline for every file to be ingested
+     */
+    public IngestionPipeline(FanOutExecutor fanOut, int batchSize, long timeoutMillis) {
+        this.fanOut = fanOut;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Ingests every file concurrently.
+     * @param files The JSON data files to read, each holding a single array of config objects
+     * @param writer Destination for the batches of configs
+     * @return A report for each file that was ingested, and the reason each of the others failed
+     */
+    public FanOutExecutor.Result<FileReport> ingest(List<Path> files, BatchWriter writer) {
+        final Map<String, Callable<FileReport>> TASKS = new LinkedHashMap<String, Callable<FileReport>>();
+        for (Path file : files) {
+            TASKS.put(file.toString(), () -> ingest(file, writer));
+        }
+        return fanOut.run(TASKS, timeoutMillis);
+    }
+
+    /**
+     * Streams a single file, grouping its configs into per-mod batches. Configs without a type are skipped as they don't belong to any endpoint.
+     * @param file The JSON data file to read
+     * @param writer Destination for the batches of configs
+     * @return How many configs were written and skipped, and how long it took
+     * @throws Exception If the file cannot be read or parsed, or a batch cannot be written
+     */
+    public FileReport ingest(Path file, BatchWriter writer) throws Exception {
+        return ingest(file.getFileName().toString(), Files.newInputStream(file), writer);
+    }
+
+    /**
+     * Streams a single data file from any source (e.g. a classpath resource), see {@link #ingest(Path, BatchWriter)}.
+     * @param name The name of the data file to report under
+     * @param input The contents of the data file, closed once it has been read
+     * @param writer Destination for the batches of configs
+     * @return How many configs were written and skipped, how long it took, and the content hashes
+     * @throws Exception If the file cannot be read or parsed, or a batch cannot be written
+     */
+    public FileReport ingest(String name, InputStream input, BatchWriter writer) throws Exception {
+        final long START = System.nanoTime();
+        final Map<String, List<Document>> BATCHES = new HashMap<String, List<Document>>();
+        final List<Document> CONFIG_HASHES = new ArrayList<Document>();
+        final DigestInputStream DIGESTED = new DigestInputStream(input, MessageDigest.getInstance("MD5"));
+        long written = 0;
+        long skipped = 0;
+
+        try (JsonParser parser = FACTORY.createParser(DIGESTED)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Could not parse " + name + " to a JSON Array");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                final Document CONFIG = new Document(readObject(parser));
+                if (!hasType(CONFIG)) {
+                    skipped++;
+                    continue;
+                }
+
+                // Hashed before the writer sees it, as writing can add fields (e.g. the mongo _id)
+                CONFIG_HASHES.add(ConfigDiff.hashEntryOf(CONFIG));
+                final String MOD = modOf(CONFIG);
+                final List<Document> BATCH = BATCHES.computeIfAbsent(MOD, key -> new ArrayList<Document>(batchSize));
+                BATCH.add(CONFIG);
+                if (BATCH.size() >= batchSize) {
+                    writer.write(MOD, BATCH);
+                    written += BATCH.size();
+                    BATCHES.put(MOD, new ArrayList<Document>(batchSize));
+                }
+            }
+            // The parser can stop before the end of the file, the rest still counts towards the file hash
+            DIGESTED.transferTo(OutputStream.nullOutputStream());
+        }
+
+        for (Map.Entry<String, List<Document>> batch : BATCHES.entrySet()) {
+            if (!batch.getValue().isEmpty()) {
+                writer.write(batch.getKey(), batch.getValue());
+                written += batch.getValue().size();
+            }
+        }
+        return new FileReport(name, written, skipped, System.nanoTime() - START, toHex(DIGESTED.getMessageDigest().digest()), CONFIG_HASHES);
+    }
+
+    private static String toHex(byte[] digest) {
+        final StringBuilder HEX = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            HEX.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return HEX.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readObject(JsonParser parser) throws IOException {
+        return MAPPER.readValue(parser, LinkedHashMap.class);
+    }
+
+    /**
+     * @param config A config read from a data file
+     * @return The mod the config belongs to, or an empty string if it has none
+     */
+    public static String modOf(Document config) {
+        return config.get("mod") == null ? "" : String.valueOf(config.get("mod"));
+    }
+
+    /**
+     * @param config A config read from a data file
+     * @return True if the config has a usable type, empty types are misleading so they are treated as missing
+     */
+    private static boolean hasType(Document config) {
+        final Object TYPE = config.get("type");
+        return TYPE != null && !String.valueOf(TYPE).isEmpty() && !String.valueOf(TYPE).equals("\"\"");
+    }
+
+    /**
+     * Destination for batches of configs, e.g. a mongo collection per mod.
+     */
+    @FunctionalInterface
+    public interface BatchWriter {
+        /**
+         * @param mod The mod every config in the batch belongs to
+         * @param batch The configs to write, the list is not reused after this call
+         * @throws Exception If the batch cannot be written
+         */
+        void write(String mod, List<Document> batch) throws Exception;
+    }
+
+    /**
+     * Throughput of a single ingested file.
+     */
+    public static class FileReport {
+        private final String name;
+        private final long written;
+        private final long skipped;
+        private final long nanos;
+        private final String hash;
+        private final List<Document> configHashes;
+
+        private FileReport(String name, long written, long skipped, long nanos, String hash, List<Document> configHashes) {
+            this.name = name;
+            this.written = written;
+            this.skipped = skipped;
+            this.nanos = nanos;
+            this.hash = hash;
+            this.configHashes = configHashes;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getWritten() {
+            return written;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public long getMillis() {
+            return nanos / 1000000;
+        }
+
+        /**
+         * @return MD5 hex digest of the file's contents
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return The hash of each config written from the file, as {@code {mod, class, hash}} entries
+         */
+        public List<Document> getConfigHashes() {
+            return configHashes;
+        }
+
+        public double getDocsPerSecond() {
+            return nanos == 0 ? 0 : written * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d configs written (%d skipped) in %dms, %.0f docs/s", name, written, skipped, getMillis(), getDocsPerSecond());
+        }
+    }
+}
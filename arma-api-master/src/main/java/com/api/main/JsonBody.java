@@ -0,0 +1,232 @@
+package com.api.main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import org.bson.Document;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A fully serialized JSON response body along with the strong ETag that identifies its contents. Bodies are built once and then written straight to every response that needs them.
+ */
+public class JsonBody {
+    private static final byte[] ARRAY_START = "[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_SEPARATOR = ", ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] ARRAY_END = "]".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] KEY_SEPARATOR = ": ".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_START = "{\"configs\": {".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_MISSING = "}, \"missing\": [".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BATCH_END = "]}".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] bytes;
+    private final String etag;
+    private final int count;
+    private volatile byte[] gzipped = null;
+
+    /**
+     * @param bytes The serialized body
+     * @param count The number of configs in the body
+     */
+    public JsonBody(byte[] bytes, int count) {
+        this.bytes = bytes;
+        this.count = count;
+        this.etag = "\"" + DigestUtils.md5DigestAsHex(bytes) + "\"";
+    }
+
+    /**
+     * Joins already serialized JSON values into a JSON array body, using the same layout as {@code String.valueOf(List)}.
+     * @param elements The UTF-8 encoded JSON values to place in the array
+     * @return The serialized array
+     */
+    public static JsonBody ofArray(List<byte[]> elements) {
+        int length = ARRAY_START.length + ARRAY_END.length;
+        for (byte[] element : elements) {
+            length += element.length + ARRAY_SEPARATOR.length;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+        out.writeBytes(ARRAY_START);
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                out.writeBytes(ARRAY_SEPARATOR);
+            }
+            out.writeBytes(elements.get(i));
+        }
+        out.writeBytes(ARRAY_END);
+        return new JsonBody(out.toByteArray(), elements.size());
+    }
+
+    /**
+     * Wraps already serialized JSON values in a paging envelope of the form {@code {"total": 1, "next": "class", "configs": [...]}}.
+     * @param total The number of configs across every page
+     * @param next The cursor for the following page, or null if this is the last page
+     * @param elements The UTF-8 encoded JSON values on this page
+     * @return The serialized envelope
+     */
+    public static JsonBody ofEnvelope(int total, String next, List<byte[]> elements) {
+        return withConfigs(new Document("total", total).append("next", next), elements);
+    }
+
+    /**
+     * Wraps already serialized JSON values in a query envelope of the form {@code {"total": 1, "next": null, "facets": {"mod": {"ace": 1}}, "configs": [...]}}.
+     * @param total The number of configs matching the query across every page
+     * @param next The cursor for the following page, or null if this is the last page or the configs are paged by number
+     * @param facets The number of matching configs per value of each counted field
+     * @param elements The UTF-8 encoded JSON values on this page
+     * @return The serialized envelope
+     */
+    public static JsonBody ofFacets(int total, String next, Map<String, Map<String, Integer>> facets, List<byte[]> elements) {
+        final Document FACETS = new Document();
+        facets.forEach((field, counts) -> FACETS.append(field, new Document(new LinkedHashMap<String, Object>(counts))));
+        return withConfigs(new Document("total", total).append("next", next).append("facets", FACETS), elements);
+    }
+
+    /**
+     * Appends the serialized configs to a header document as its {@code configs} field.
+     */
+    private static JsonBody withConfigs(Document header, List<byte[]> elements) {
+        final String HEADER = header.toJson();
+        final byte[] START = (HEADER.substring(0, HEADER.length() - 1) + ", \"configs\": ").getBytes(StandardCharsets.UTF_8);
+        final byte[] ARRAY = ofArray(elements).getBytes();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(START.length + ARRAY.length + 1);
+        out.writeBytes(START);
+        out.writeBytes(ARRAY);
+        out.write('}');
+        return new JsonBody(out.toByteArray(), elements.size());
+    }
+
+    /**
+     * Builds the body of a batch lookup, of the form {@code {"configs": {"class": [...]}, "missing": ["class"]}}.
+     * @param found The serialized configs found for each requested class, in the order they were requested
+     * @param missing The requested classes that weren't found
+     * @return The serialized body
+     */
+    public static JsonBody ofBatch(Map<String, List<byte[]>> found, List<String> missing) {
+        final ByteArrayOutputStream OUT = new ByteArrayOutputStream();
+        int count = 0;
+        OUT.writeBytes(BATCH_START);
+        boolean first = true;
+        for (Map.Entry<String, List<byte[]>> entry : found.entrySet()) {
+            if (!first) {
+                OUT.writeBytes(ARRAY_SEPARATOR);
+            }
+            first = false;
+            writeString(OUT, entry.getKey());
+            OUT.writeBytes(KEY_SEPARATOR);
+            OUT.writeBytes(ofArray(entry.getValue()).getBytes());
+            count += entry.getValue().size();
+        }
+        OUT.writeBytes(BATCH_MISSING);
+        for (int i = 0; i < missing.size(); i++) {
+            if (i > 0) {
+                OUT.writeBytes(ARRAY_SEPARATOR);
+            }
+            writeString(OUT, missing.get(i));
+        }
+        OUT.writeBytes(BATCH_END);
+        return new JsonBody(OUT.toByteArray(), count);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        out.write('"');
+        out.writeBytes(JsonStringEncoder.getInstance().quoteAsUTF8(value));
+        out.write('"');
+    }
+
+    /**
+     * Removes the whitespace between the tokens of serialized JSON, leaving the contents of strings untouched.
+     * @param json UTF-8 encoded JSON
+     * @return The same JSON without whitespace, or the input itself if it had none
+     */
+    public static byte[] compact(byte[] json) {
+        final ByteArrayOutputStream OUT = new ByteArrayOutputStream(json.length);
+        boolean inString = false;
+        boolean escaped = false;
+        for (byte character : json) {
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (character == '\\') {
+                    escaped = true;
+                } else if (character == '"') {
+                    inString = false;
+                }
+            } else if (character == '"') {
+                inString = true;
+            } else if (character == ' ' || character == '\n' || character == '\r' || character == '\t') {
+                continue;
+            }
+            OUT.write(character);
+        }
+        return OUT.size() == json.length ? json : OUT.toByteArray();
+    }
+
+    /**
+     * @param acceptEncoding The {@code Accept-Encoding} header of a request, may be null
+     * @return True if the request accepts gzip encoded bodies
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] PARTS = coding.split(";");
+            final String NAME = PARTS[0].trim();
+            if (NAME.equalsIgnoreCase("gzip") || NAME.equals("*")) {
+                return PARTS.length == 1 || !PARTS[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The body compressed with gzip, compressed the first time it is needed and then kept alongside the body
+     */
+    public byte[] getGzipped() {
+        byte[] compressed = gzipped;
+        if (compressed != null) {
+            return compressed;
+        }
+        // Concurrent requests for the same body wait for a single compression
+        synchronized (this) {
+            if (gzipped == null) {
+                final ByteArrayOutputStream OUT = new ByteArrayOutputStream(bytes.length / 4 + 32);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(OUT)) {
+                    gzip.write(bytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                gzipped = OUT.toByteArray();
+            }
+            return gzipped;
+        }
+    }
+
+    /**
+     * @return The strong ETag of the gzip encoded body, which must differ from the ETag of the plain body
+     */
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public int getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,45 @@
+package com.api.main;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate limits a high volume log line (e.g. one per request) to a fixed number of lines per second. Lines over the limit are counted rather than logged, and the check costs a couple of atomic operations so callers can skip building the line altogether.
+ */
+public class LogSampler {
+    private final int perSecond;
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicInteger used = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    /**
+     * @param perSecond Maximum number of lines to log each second, 0 to suppress every line
+     */
+    public LogSampler(int perSecond) {
+        this.perSecond = perSecond;
+    }
+
+    /**
+     * @return True if the line should be logged, false if the limit for the current second has been reached
+     */
+    public boolean sample() {
+        final long NOW = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        final long WINDOW = window.get();
+        if (NOW != WINDOW && window.compareAndSet(WINDOW, NOW)) {
+            used.set(0);
+        }
+        if (used.incrementAndGet() <= perSecond) {
+            return true;
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * @return The number of lines that were over the limit and not logged
+     */
+    public long getSuppressed() {
+        return suppressed.get();
+    }
+}
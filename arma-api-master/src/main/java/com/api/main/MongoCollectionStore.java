@@ -0,0 +1,93 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteManyModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.WriteModel;
+
+import org.bson.Document;
+
+/**
+ * Runs the {@link CollectionStore} operations against a mongo database.
+ */
+public class MongoCollectionStore implements CollectionStore {
+    private static final InsertManyOptions UNORDERED = new InsertManyOptions().ordered(false);
+
+    private final MongoDatabase database;
+
+    /**
+     * @param database Mongo database holding the mod collections
+     */
+    public MongoCollectionStore(MongoDatabase database) {
+        this.database = database;
+    }
+
+    @Override
+    public List<String> listCollectionNames() {
+        return database.listCollectionNames().into(new ArrayList<String>());
+    }
+
+    @Override
+    public List<Document> find(String collectionName) {
+        return database.getCollection(collectionName).find().into(new ArrayList<Document>());
+    }
+
+    @Override
+    public List<Document> find(String collectionName, String field, Object value) {
+        return database.getCollection(collectionName).find(Filters.eq(field, value)).into(new ArrayList<Document>());
+    }
+
+    @Override
+    public void insert(String collectionName, List<Document> documents) {
+        database.getCollection(collectionName).insertMany(documents, UNORDERED);
+    }
+
+    @Override
+    public void copy(String from, String to) {
+        database.getCollection(from).aggregate(List.of(Aggregates.out(to))).toCollection();
+    }
+
+    @Override
+    public void replaceClasses(String collectionName, List<String> classNames, List<Document> configs) {
+        final List<WriteModel<Document>> WRITES = new ArrayList<WriteModel<Document>>(classNames.size() + configs.size());
+        classNames.forEach(className -> WRITES.add(new DeleteManyModel<Document>(Filters.eq("class", className))));
+        configs.forEach(config -> WRITES.add(new InsertOneModel<Document>(config)));
+        if (!WRITES.isEmpty()) {
+            database.getCollection(collectionName).bulkWrite(WRITES, new BulkWriteOptions().ordered(true));
+        }
+    }
+
+    @Override
+    public void createIndex(String collectionName, String field) {
+        database.getCollection(collectionName).createIndex(Indexes.ascending(field));
+    }
+
+    @Override
+    public void drop(String collectionName) {
+        database.getCollection(collectionName).drop();
+    }
+
+    @Override
+    public void upsert(String collectionName, Document document) {
+        database.getCollection(collectionName).replaceOne(Filters.eq("_id", document.get("_id")), document, new ReplaceOptions().upsert(true));
+    }
+
+    @Override
+    public void delete(String collectionName, Object id) {
+        database.getCollection(collectionName).deleteOne(Filters.eq("_id", id));
+    }
+
+    @Override
+    public void deleteUnless(String collectionName, String field, List<?> values) {
+        database.getCollection(collectionName).deleteMany(Filters.nin(field, values));
+    }
+}
@@ -0,0 +1,91 @@
+package com.api.main;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolListenerAdapter;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+import com.mongodb.event.ConnectionRemovedEvent;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * Gauges the connection pool of every server the mongo client connects to: the number of open connections and how many of them are checked out.
+ * Micrometer ships a listener for this but it targets the events of the 4.x driver, so this one follows the same meter names using the events of the 3.x driver. The wait queue events of the 3.x driver are deprecated and not reliably fired, so there is no wait queue gauge.
+ */
+public class MongoPoolMetrics extends ConnectionPoolListenerAdapter {
+    private final MeterRegistry registry;
+    private final Map<ServerId, Pool> pools = new ConcurrentHashMap<ServerId, Pool>();
+
+    /**
+     * @param registry The registry to register the gauges with
+     */
+    public MongoPoolMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void connectionPoolOpened(ConnectionPoolOpenedEvent event) {
+        final Tags TAGS = Tags.of("cluster.id", event.getServerId().getClusterId().getValue(), "server.address", event.getServerId().getAddress().toString());
+        final Pool POOL = new Pool();
+        POOL.gauges = List.of(
+            Gauge.builder("mongodb.driver.pool.size", POOL.size, AtomicInteger::get).description("The current size of the connection pool, including idle and in-use members").tags(TAGS).register(registry),
+            Gauge.builder("mongodb.driver.pool.checkedout", POOL.checkedOut, AtomicInteger::get).description("The count of connections that are currently in use").tags(TAGS).register(registry)
+        );
+        pools.put(event.getServerId(), POOL);
+    }
+
+    @Override
+    public void connectionPoolClosed(ConnectionPoolClosedEvent event) {
+        final Pool POOL = pools.remove(event.getServerId());
+        if (POOL != null) {
+            POOL.gauges.forEach(registry::remove);
+        }
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        update(event.getConnectionId().getServerId(), pool -> pool.checkedOut, 1);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        update(event.getConnectionId().getServerId(), pool -> pool.checkedOut, -1);
+    }
+
+    @Override
+    public void connectionAdded(ConnectionAddedEvent event) {
+        update(event.getConnectionId().getServerId(), pool -> pool.size, 1);
+    }
+
+    @Override
+    public void connectionRemoved(ConnectionRemovedEvent event) {
+        update(event.getConnectionId().getServerId(), pool -> pool.size, -1);
+    }
+
+    private void update(ServerId serverId, Function<Pool, AtomicInteger> counter, int delta) {
+        final Pool POOL = pools.get(serverId);
+        if (POOL != null) {
+            counter.apply(POOL).addAndGet(delta);
+        }
+    }
+
+    /**
+     * The counts behind the gauges of a single server's pool.
+     */
+    private static class Pool {
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicInteger checkedOut = new AtomicInteger();
+        private List<Gauge> gauges;
+    }
+}
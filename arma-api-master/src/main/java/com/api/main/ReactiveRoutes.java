@@ -0,0 +1,342 @@
+package com.api.main;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.reactive.result.view.ViewResolver;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.WebFilter;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking versions of the {@code /classes} routes, used when the application is started with {@code spring.main.web-application-type=reactive}. They run on the netty event loop and keep the same contract as the servlet routes in {@link Executer}: parameters, headers, ETags, paging and error bodies.
+ * Requests go through the same {@link Admission} control, answered with a 429 or 503 and a {@code Retry-After} header when turned away. Bodies are served from the catalog cache without being copied, and streamed results are written one config at a time as the client reads them, so a slow client holds back its own stream rather than a thread.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRoutes {
+    private static Logger LOGGER = Logger.getLogger(ReactiveRoutes.class.getName());
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final DataBufferFactory BUFFERS = new DefaultDataBufferFactory();
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Tomcat is on the classpath for the servlet routes and would otherwise be picked to run the reactive ones too.
+     * @return A netty server to run the routes on its event loop
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> catalogRoutes() {
+        return RouterFunctions.route()
+            .GET("/classes/search/{term}", deferred(this::search))
+            .GET("/classes/query", deferred(this::query))
+            .GET("/classes/{mod}", deferred(this::classes))
+            .GET("/classes", deferred(this::classes))
+            .POST("/classes/batch", deferred(this::batch))
+            // Malformed numbers get an empty 400 like the servlet routes' type mismatches, everything else the usual error body
+            .onError(error -> error instanceof NumberFormatException || error instanceof ServerWebInputException || error instanceof DecodingException, (error, request) -> ServerResponse.badRequest().build())
+            .onError(RetryLaterException.class, (error, request) -> retryLater(error))
+            .onError(Exception.class, (error, request) -> error(error))
+            .build();
+    }
+
+    /**
+     * Reactive version of the {@link AdmissionInterceptor}, run as a filter so the ticket is held until the response (or stream) has been written rather than until it has been built.
+     * @param codecs The codecs to write the error body of turned away requests with
+     * @return A filter running every request to the {@code /classes} routes through the admission control
+     */
+    @Bean
+    public WebFilter admissionFilter(ServerCodecConfigurer codecs) {
+        final ServerResponse.Context CONTEXT = new ServerResponse.Context() {
+            @Override
+            public List<HttpMessageWriter<?>> messageWriters() {
+                return codecs.getWriters();
+            }
+
+            @Override
+            public List<ViewResolver> viewResolvers() {
+                return List.of();
+            }
+        };
+
+        return (exchange, chain) -> {
+            final Admission ADMISSION = Executer.getAdmission();
+            final ServerHttpRequest REQUEST = exchange.getRequest();
+            if (ADMISSION == null || !REQUEST.getPath().value().startsWith("/classes")) {
+                return chain.filter(exchange);
+            }
+
+            final boolean FULL_SCAN = HttpMethod.GET.equals(REQUEST.getMethod()) && Admission.isFullScan(REQUEST.getQueryParams().getFirst("size"));
+            // The forwarded address when server.forward-headers-strategy is set, as in the env profile, otherwise every client behind a proxy shares one bucket
+            final String CLIENT = REQUEST.getRemoteAddress() == null ? "" : REQUEST.getRemoteAddress().getAddress().getHostAddress();
+            final Admission.Ticket TICKET;
+            try {
+                TICKET = ADMISSION.admit(CLIENT, FULL_SCAN);
+            } catch (RetryLaterException e) {
+                return retryLater(e).flatMap(response -> response.writeTo(exchange, CONTEXT));
+            }
+            return chain.filter(exchange).doFinally(signal -> TICKET.close());
+        };
+    }
+
+    /**
+     * Turns exceptions thrown by a handler into errors of the response, so they reach the error handlers of the routes.
+     */
+    private static HandlerFunction<ServerResponse> deferred(Route handler) {
+        return request -> Mono.defer(() -> {
+            try {
+                return handler.handle(request);
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+        });
+    }
+
+    /**
+     * A handler that, like the servlet routes, throws when the user input is invalid.
+     */
+    @FunctionalInterface
+    private interface Route {
+        Mono<ServerResponse> handle(ServerRequest request) throws Exception;
+    }
+
+    /**
+     * Reactive version of {@link Executer#classes}.
+     * @param request The incoming request
+     * @return The filtered configs
+     * @throws Exception The user has provided a mod, type or pagination parameter that isn't valid
+     */
+    private Mono<ServerResponse> classes(ServerRequest request) throws Exception {
+        final String MOD = request.pathVariables().get("mod");
+        final String TYPE = request.queryParam("type").orElse(null);
+        final Integer PAGE = intParam(request, "page", 0);
+        final Integer SIZE = intParam(request, "size", -1);
+        final String AFTER = request.queryParam("after").orElse(null);
+        if (Executer.sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes mod={0} type={1} page={2,number,#} size={3,number,#} after={4}", new Object[] {MOD, TYPE, PAGE, SIZE, AFTER});
+        }
+
+        // Escape and verify params
+        final long START = System.nanoTime();
+        final String FILTERED_MOD = Executer.getValidator().mod(MOD);
+        final String FILTERED_TYPE = Executer.getValidator().type(TYPE);
+        final long VALIDATED = Executer.CLASSES_METERS.validated(START);
+
+        // Filter cached catalog by keywords or return all
+        final CatalogSlice SLICE = project(Executer.retrieveCatalog().get(FILTERED_MOD, FILTERED_TYPE), request);
+        final long LOOKED_UP = Executer.CLASSES_METERS.lookedUp(VALIDATED);
+
+        return respond(SLICE, PAGE, SIZE, AFTER, request, Executer.CLASSES_METERS, LOOKED_UP);
+    }
+
+    /**
+     * Reactive version of {@link Executer#search}.
+     * @param request The incoming request
+     * @return The matching configs
+     * @throws Exception The user has provided a pagination parameter that isn't valid
+     */
+    private Mono<ServerResponse> search(ServerRequest request) throws Exception {
+        final String TERM = request.pathVariable("term");
+        final Integer PAGE = intParam(request, "page", 0);
+        final Integer SIZE = intParam(request, "size", -1);
+        final String AFTER = request.queryParam("after").orElse(null);
+        if (Executer.sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/search term={0} page={1,number,#} size={2,number,#} after={3}", new Object[] {TERM, PAGE, SIZE, AFTER});
+        }
+
+        // Escape user input
+        final long START = System.nanoTime();
+        final String FILTERED_TERM = Executer.getValidator().escape(TERM);
+        final long VALIDATED = Executer.SEARCH_METERS.validated(START);
+
+        // Match against the cached catalog
+        final CatalogSlice SLICE = project(Executer.retrieveCatalog().search(FILTERED_TERM), request);
+        final long LOOKED_UP = Executer.SEARCH_METERS.lookedUp(VALIDATED);
+
+        return respond(SLICE, PAGE, SIZE, AFTER, request, Executer.SEARCH_METERS, LOOKED_UP);
+    }
+
+    /**
+     * Reactive version of {@link Executer#query}.
+     * @param request The incoming request
+     * @return The matching configs and their facet counts
+     * @throws Exception The user has provided a filter or pagination parameter that isn't valid
+     */
+    private Mono<ServerResponse> query(ServerRequest request) throws Exception {
+        final List<String> FILTERS = request.queryParams().getOrDefault("filter", List.of());
+        final String FACETS = request.queryParam("facets").orElse("mod,type,subtype");
+        final Integer PAGE = intParam(request, "page", 0);
+        final Integer SIZE = intParam(request, "size", -1);
+        final String AFTER = request.queryParam("after").orElse(null);
+        if (Executer.sampleRequestLog()) {
+            LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/query filters={0} facets={1} page={2,number,#} size={3,number,#} after={4}", new Object[] {FILTERS, FACETS, PAGE, SIZE, AFTER});
+        }
+
+        final JsonBody BODY = Executer.resolveQuery(FILTERS, FACETS, PAGE, SIZE, AFTER, request.queryParam("fields").orElse(null), Boolean.parseBoolean(request.queryParam("compact").orElse("false")), Executer.QUERY_METERS);
+        final boolean GZIP = Executer.gzip(BODY, request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING));
+        final String ETAG = GZIP ? BODY.getGzipEtag() : BODY.getEtag();
+        if (notModified(request, ETAG)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(ETAG).build();
+        }
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(ETAG)
+            .headers(headers -> headers.addAll(Executer.encodingHeaders(GZIP)))
+            .headers(headers -> headers.addAll(Executer.staleModsHeader()))
+            .body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> BUFFERS.wrap(GZIP ? BODY.getGzipped() : BODY.getBytes()))));
+    }
+
+    /**
+     * Reactive version of {@link Executer#batch}.
+     * @param request The incoming request
+     * @return The configs found for each entry, and the entries that weren't found
+     */
+    private Mono<ServerResponse> batch(ServerRequest request) {
+        return request.bodyToMono(List.class).switchIfEmpty(Mono.error(new ServerWebInputException("Request body is missing"))).flatMap(entries -> {
+            if (Executer.sampleRequestLog()) {
+                LOGGER.log(Level.INFO, "[INFO] request endpoint=/classes/batch entries={0,number,#}", new Object[] {entries.size()});
+            }
+            try {
+                final JsonBody BODY = Executer.resolveBatch(entries, Executer.BATCH_METERS);
+                final boolean GZIP = Executer.gzip(BODY, request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING));
+                return ServerResponse.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(headers -> headers.addAll(Executer.encodingHeaders(GZIP)))
+                    .headers(headers -> headers.addAll(Executer.staleModsHeader()))
+                    .body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> BUFFERS.wrap(GZIP ? BODY.getGzipped() : BODY.getBytes()))));
+            } catch (Exception e) {
+                return Mono.error(e);
+            }
+        });
+    }
+
+    /**
+     * Reactive version of {@code Executer#respond}, answering with the cached body, a 304, or a stream of newline delimited JSON.
+     */
+    private Mono<ServerResponse> respond(CatalogSlice slice, Integer page, Integer size, String after, ServerRequest request, Telemetry.Endpoint meters, long startNanos) throws Exception {
+        Executer.checkPagination(page, size);
+        final HttpHeaders HEADERS = Executer.staleModsHeader();
+        HEADERS.set("X-Total-Count", String.valueOf(slice.size()));
+
+        if (Boolean.parseBoolean(request.queryParam("stream").orElse("false")) || acceptsNdjson(request)) {
+            final List<byte[]> SERIALIZED = Executer.serialized(slice, page, size, after);
+            long bytes = 0;
+            for (byte[] config : SERIALIZED) {
+                bytes += config.length + NEWLINE.length;
+            }
+            meters.serialized(startNanos, bytes, SERIALIZED.size());
+
+            // Each config is only handed to netty once the client has room for it
+            final Flux<DataBuffer> STREAM = Flux.fromIterable(SERIALIZED)
+                .concatMap(config -> Flux.just(BUFFERS.wrap(config), BUFFERS.wrap(NEWLINE)), 1);
+            return ServerResponse.ok().contentType(NDJSON).headers(headers -> headers.addAll(HEADERS)).body(BodyInserters.fromDataBuffers(STREAM));
+        }
+
+        final JsonBody BODY = Executer.body(slice, page, size, after);
+        final boolean GZIP = Executer.gzip(BODY, request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING));
+        final byte[] BYTES = GZIP ? BODY.getGzipped() : BODY.getBytes();
+        final String ETAG = GZIP ? BODY.getGzipEtag() : BODY.getEtag();
+        meters.serialized(startNanos, BYTES.length, BODY.getCount());
+        if (notModified(request, ETAG)) {
+            return ServerResponse.status(HttpStatus.NOT_MODIFIED).eTag(ETAG).build();
+        }
+        HEADERS.addAll(Executer.encodingHeaders(GZIP));
+        return ServerResponse.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(ETAG)
+            .headers(headers -> headers.addAll(HEADERS))
+            .body(BodyInserters.fromDataBuffers(Mono.fromSupplier(() -> BUFFERS.wrap(BYTES))));
+    }
+
+    /**
+     * Builds the same error body as the {@link GlobalExceptionHandler} does for the servlet routes.
+     */
+    private Mono<ServerResponse> error(Throwable error) {
+        return ServerResponse.status(HttpStatus.NOT_FOUND).contentType(MediaType.APPLICATION_JSON).bodyValue(errorBody(error, HttpStatus.NOT_FOUND));
+    }
+
+    /**
+     * Builds the same response as the {@link GlobalExceptionHandler} does for requests the servlet routes turn away because of load.
+     */
+    private static Mono<ServerResponse> retryLater(RetryLaterException error) {
+        return ServerResponse.status(error.getStatus())
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(error.getRetryAfterSeconds()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(errorBody(error, error.getStatus()));
+    }
+
+    private static CustomErrorResponse errorBody(Throwable error, HttpStatus status) {
+        CustomErrorResponse errors = new CustomErrorResponse();
+        errors.setTimestamp(LocalDateTime.now());
+        errors.setError(error.getMessage());
+        errors.setStatus(status.value());
+        return errors;
+    }
+
+    private static CatalogSlice project(CatalogSlice slice, ServerRequest request) {
+        return Executer.project(slice, request.queryParam("fields").orElse(null), Boolean.parseBoolean(request.queryParam("compact").orElse("false")));
+    }
+
+    private static Integer intParam(ServerRequest request, String name, int defaultValue) {
+        final Optional<String> VALUE = request.queryParam(name);
+        return VALUE.isPresent() ? Integer.valueOf(VALUE.get()) : defaultValue;
+    }
+
+    /**
+     * @return True if the request's {@code If-None-Match} header holds the ETag of the body
+     */
+    private static boolean notModified(ServerRequest request, String etag) {
+        for (String match : request.headers().header(HttpHeaders.IF_NONE_MATCH)) {
+            for (String candidate : match.split(",")) {
+                final String TRIMMED = candidate.trim();
+                if (TRIMMED.equals("*") || TRIMMED.equals(etag) || TRIMMED.equals("W/" + etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return True if the request explicitly accepts newline delimited JSON
+     */
+    private static boolean acceptsNdjson(ServerRequest request) {
+        for (MediaType mediaType : request.headers().accept()) {
+            if (NDJSON.equalsTypeAndSubtype(mediaType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
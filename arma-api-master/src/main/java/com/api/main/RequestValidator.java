@@ -0,0 +1,95 @@
+package com.api.main;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validates and escapes the user input of every request against lookup tables built once at startup, so a valid request doesn't allocate anything.
+ * Special mongo characters are filtered with a bitset, and mods and types are looked up in immutable maps that return the canonical (interned) instance of each value, which the catalog cache keys are interned to as well.
+ */
+public class RequestValidator {
+    private final BitSet specialChars = new BitSet();
+    private final Map<String, String> mods;
+    private final Map<String, String> types;
+    private final String modNames;
+    private final String typeNames;
+
+    /**
+     * @param mods The supported mods
+     * @param types The supported config types
+     * @param specialChars Characters to strip from user input
+     */
+    public RequestValidator(Collection<String> mods, Collection<String> types, CharSequence specialChars) {
+        for (int i = 0; i < specialChars.length(); i++) {
+            this.specialChars.set(specialChars.charAt(i));
+        }
+        this.mods = canonical(mods);
+        this.types = canonical(types);
+        this.modNames = List.copyOf(mods).toString();
+        this.typeNames = List.copyOf(types).toString();
+    }
+
+    private static Map<String, String> canonical(Collection<String> values) {
+        final Map<String, String> CANONICAL = new HashMap<String, String>();
+        for (String value : values) {
+            CANONICAL.put(value, value.intern());
+        }
+        return Map.copyOf(CANONICAL);
+    }
+
+    /**
+     * Escapes a user input from the url path or request parameters to remove all special mongo charecters
+     * @param unfilteredInput The unfiltered user input straight from the url
+     * @return A filtered input without any special charecters, the input itself if it had none
+     */
+    public String escape(String unfilteredInput) {
+        int first = 0;
+        while (first < unfilteredInput.length() && !specialChars.get(unfilteredInput.charAt(first))) {
+            first++;
+        }
+        if (first == unfilteredInput.length()) {
+            return unfilteredInput;
+        }
+
+        final StringBuilder FILTERED = new StringBuilder(unfilteredInput.length() - 1).append(unfilteredInput, 0, first);
+        for (int i = first + 1; i < unfilteredInput.length(); i++) {
+            if (!specialChars.get(unfilteredInput.charAt(i))) {
+                FILTERED.append(unfilteredInput.charAt(i));
+            }
+        }
+        return FILTERED.toString();
+    }
+
+    /**
+     * @param mod A mod from the user, may be null or empty
+     * @return The canonical instance of the escaped mod, or an empty string if no mod was given
+     * @throws Exception If the mod isn't supported
+     */
+    public String mod(String mod) throws Exception {
+        return lookup(mod, mods, "Unidentified mod (%s). Available values are %s", modNames);
+    }
+
+    /**
+     * @param type A config type from the user, may be null or empty
+     * @return The canonical instance of the escaped type, or an empty string if no type was given
+     * @throws Exception If the type isn't supported
+     */
+    public String type(String type) throws Exception {
+        return lookup(type, types, "Unidentified object type (%s). Available values are %s", typeNames);
+    }
+
+    private String lookup(String input, Map<String, String> values, String message, String names) throws Exception {
+        if (input == null || input.isEmpty()) {
+            return "";
+        }
+        final String FILTERED = escape(input);
+        final String CANONICAL = values.get(FILTERED);
+        if (CANONICAL == null) {
+            throw new Exception(String.format(message, FILTERED, names));
+        }
+        return CANONICAL;
+    }
+}
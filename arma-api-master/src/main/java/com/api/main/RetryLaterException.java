@@ -0,0 +1,32 @@
+package com.api.main;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request is turned away because of load rather than because of its input, e.g. the client is over its rate limit or the catalog is still loading. It is answered with its status and a {@code Retry-After} header instead of a 404.
+ */
+public class RetryLaterException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    /**
+     * @param status The status to answer with, 429 or 503
+     * @param retryAfterSeconds How long the client should wait before retrying
+     * @param message The error message
+     */
+    public RetryLaterException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
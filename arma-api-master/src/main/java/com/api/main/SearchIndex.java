@@ -0,0 +1,307 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+
+/**
+ * In-process inverted index over the class name, display name and description of every config in the catalog, plus exact lookups on its numeric fields.
+ * Each word of a query is matched against the indexed tokens exactly, as a prefix, or (when neither finds anything) with a single typo, and the matched configs are ranked by how many words they match, where and how well.
+ * A compound word such as a full class name only matches configs that contain every one of its parts, and an exact match on the whole class name ranks far above partial matches.
+ */
+public class SearchIndex {
+    private static final Pattern MARKUP = Pattern.compile("<br\\s*/?>|<[^>]+>", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern QUERY_SEPARATOR = Pattern.compile("\\s+");
+
+    // Field weights, a class name hit outranks a display name hit, which outranks a description hit
+    private static final String[] FIELDS = {"class", "name", "description"};
+    private static final float[] FIELD_WEIGHTS = {3f, 2f, 1f};
+
+    // Match weights, exact tokens outrank prefixes, which outrank typos
+    private static final float EXACT = 1f;
+    private static final float PREFIX = 0.6f;
+    private static final float TYPO = 0.4f;
+    private static final float WHOLE_CLASS = 10f;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MIN_TYPO_LENGTH = 4;
+    private static final int[] NONE = new int[0];
+
+    private final String[] tokens;
+    private final int[][] postings;
+    private final float[][] weights;
+    private final Map<String, int[]> deletions;
+    private final Map<Long, int[]> numbers;
+    private final String[] classes;
+
+    /**
+     * Builds the index over every config in the list. Query results refer to configs by their position in this list.
+     * @param configs The configs to index
+     */
+    public SearchIndex(List<Document> configs) {
+        final Map<String, Map<Integer, Float>> TOKEN_POSTINGS = new HashMap<String, Map<Integer, Float>>();
+        final Map<Long, List<Integer>> NUMBER_POSTINGS = new HashMap<Long, List<Integer>>();
+        classes = new String[configs.size()];
+
+        for (int position = 0; position < configs.size(); position++) {
+            final Document CONFIG = configs.get(position);
+            classes[position] = CatalogSlice.classOf(CONFIG);
+            for (int field = 0; field < FIELDS.length; field++) {
+                final Object VALUE = CONFIG.get(FIELDS[field]);
+                if (!(VALUE instanceof String)) {
+                    continue;
+                }
+                for (String token : tokenize((String) VALUE, FIELDS[field].equals("class"))) {
+                    TOKEN_POSTINGS.computeIfAbsent(token, key -> new HashMap<Integer, Float>()).merge(position, FIELD_WEIGHTS[field], Math::max);
+                }
+            }
+            for (Object value : CONFIG.values()) {
+                if (value instanceof Number && ((Number) value).doubleValue() == ((Number) value).longValue()) {
+                    List<Integer> positions = NUMBER_POSTINGS.computeIfAbsent(((Number) value).longValue(), key -> new ArrayList<Integer>());
+                    if (positions.isEmpty() || positions.get(positions.size() - 1) != position) {
+                        positions.add(position);
+                    }
+                }
+            }
+        }
+
+        // Sorted token dictionary so prefixes are a contiguous range
+        tokens = TOKEN_POSTINGS.keySet().toArray(new String[0]);
+        Arrays.sort(tokens);
+        postings = new int[tokens.length][];
+        weights = new float[tokens.length][];
+        final Map<String, List<Integer>> DELETIONS = new HashMap<String, List<Integer>>();
+        for (int token = 0; token < tokens.length; token++) {
+            final Map<Integer, Float> TOKEN_POSTING = TOKEN_POSTINGS.get(tokens[token]);
+            postings[token] = new int[TOKEN_POSTING.size()];
+            weights[token] = new float[TOKEN_POSTING.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Float> posting : TOKEN_POSTING.entrySet()) {
+                postings[token][i] = posting.getKey();
+                weights[token][i++] = posting.getValue();
+            }
+            if (tokens[token].length() >= MIN_TYPO_LENGTH) {
+                for (String deletion : deletionsOf(tokens[token])) {
+                    DELETIONS.computeIfAbsent(deletion, key -> new ArrayList<Integer>()).add(token);
+                }
+            }
+        }
+
+        deletions = new HashMap<String, int[]>(DELETIONS.size());
+        DELETIONS.forEach((deletion, tokenIds) -> deletions.put(deletion, tokenIds.stream().mapToInt(Integer::intValue).toArray()));
+        numbers = new HashMap<Long, int[]>(NUMBER_POSTINGS.size());
+        NUMBER_POSTINGS.forEach((number, positions) -> numbers.put(number, positions.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Finds every config matching at least one word of the query.
+     * @param query The search query, words are separated by whitespace
+     * @return Positions of the matching configs, best match first (ties are broken by class name)
+     */
+    public int[] search(String query) {
+        final Map<Integer, Float> SCORES = new HashMap<Integer, Float>();
+        for (String word : QUERY_SEPARATOR.split(query.trim().toLowerCase())) {
+            if (word.isEmpty()) {
+                continue;
+            }
+
+            // Numbers are matched against the numeric fields (count, weight, etc)
+            try {
+                for (int position : numbers.getOrDefault(Long.parseLong(word), NONE)) {
+                    SCORES.merge(position, EXACT, Float::sum);
+                }
+                continue;
+            } catch (NumberFormatException e) {
+                // Not a number, match it as text
+            }
+
+            // A query word can span several tokens (e.g. a full class name), in which case every part has to match as well as, or instead of, the word as a whole
+            final List<String> PARTS = new ArrayList<String>();
+            for (String part : WORD_SEPARATOR.split(word)) {
+                if (!part.isEmpty()) {
+                    PARTS.add(part);
+                }
+            }
+            if (PARTS.size() == 1) {
+                matchWord(PARTS.get(0), SCORES);
+            } else if (PARTS.size() > 1) {
+                matchCompound(PARTS, SCORES);
+            }
+        }
+
+        final Integer[] RANKED = SCORES.keySet().toArray(new Integer[0]);
+        Arrays.sort(RANKED, (first, second) -> {
+            final int BY_SCORE = Float.compare(SCORES.get(second), SCORES.get(first));
+            return BY_SCORE != 0 ? BY_SCORE : classes[first].compareTo(classes[second]);
+        });
+        return Arrays.stream(RANKED).mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Adds the best score each config gets for a single query token to its running total.
+     */
+    private void matchWord(String token, Map<Integer, Float> scores) {
+        final Map<Integer, Float> TOKEN_SCORES = new HashMap<Integer, Float>();
+        matchToken(token, EXACT, TOKEN_SCORES);
+        TOKEN_SCORES.forEach((position, score) -> scores.merge(position, score, Float::sum));
+    }
+
+    /**
+     * Adds the scores of a compound word to the running totals. Configs matching the joined word (an exact one being the whole class name) are kept, as are configs matching every part of it, anything matching only some of the parts is dropped.
+     */
+    private void matchCompound(List<String> parts, Map<Integer, Float> scores) {
+        final Map<Integer, Float> WORD_SCORES = new HashMap<Integer, Float>();
+        matchToken(String.join("", parts), EXACT * WHOLE_CLASS, WORD_SCORES);
+
+        Map<Integer, Float> allParts = null;
+        for (String part : parts) {
+            final Map<Integer, Float> PART_SCORES = new HashMap<Integer, Float>();
+            matchToken(part, EXACT, PART_SCORES);
+            if (allParts == null) {
+                allParts = PART_SCORES;
+            } else {
+                allParts.keySet().retainAll(PART_SCORES.keySet());
+                allParts.replaceAll((position, score) -> score + PART_SCORES.get(position));
+            }
+            if (allParts.isEmpty()) {
+                break;
+            }
+        }
+
+        allParts.forEach((position, score) -> WORD_SCORES.merge(position, score, Float::sum));
+        WORD_SCORES.forEach((position, score) -> scores.merge(position, score, Float::sum));
+    }
+
+    /**
+     * Scores every config containing the token exactly or, if the token isn't too short, as a prefix, falling back to tokens a single typo away if there are none.
+     */
+    private void matchToken(String token, float exactWeight, Map<Integer, Float> scores) {
+        final int START = lowerBound(token);
+        boolean matched = false;
+        for (int i = START; i < tokens.length && tokens[i].startsWith(token); i++) {
+            final boolean IS_EXACT = tokens[i].length() == token.length();
+            if (!IS_EXACT && token.length() < MIN_PREFIX_LENGTH) {
+                break;
+            }
+            addPostings(i, IS_EXACT ? exactWeight : PREFIX, scores);
+            matched = true;
+        }
+        if (matched || token.length() < MIN_TYPO_LENGTH) {
+            return;
+        }
+
+        // Candidates share a single character deletion with the token, or are the token with a character deleted or inserted
+        final Set<Integer> CANDIDATES = new HashSet<Integer>();
+        for (String deletion : deletionsOf(token)) {
+            for (int tokenId : deletions.getOrDefault(deletion, NONE)) {
+                CANDIDATES.add(tokenId);
+            }
+            final int DELETED_TOKEN = Arrays.binarySearch(tokens, deletion);
+            if (DELETED_TOKEN >= 0) {
+                CANDIDATES.add(DELETED_TOKEN);
+            }
+        }
+        final int EXACT_TOKEN = Arrays.binarySearch(tokens, token);
+        for (int tokenId : deletions.getOrDefault(token, NONE)) {
+            CANDIDATES.add(tokenId);
+        }
+        for (int tokenId : CANDIDATES) {
+            if (tokenId != EXACT_TOKEN && withinOneEdit(token, tokens[tokenId])) {
+                addPostings(tokenId, TYPO, scores);
+            }
+        }
+    }
+
+    private void addPostings(int token, float matchWeight, Map<Integer, Float> scores) {
+        for (int i = 0; i < postings[token].length; i++) {
+            scores.merge(postings[token][i], weights[token][i] * matchWeight, Math::max);
+        }
+    }
+
+    private int lowerBound(String token) {
+        int low = 0;
+        int high = tokens.length;
+        while (low < high) {
+            final int MIDDLE = (low + high) >>> 1;
+            if (tokens[MIDDLE].compareTo(token) < 0) {
+                low = MIDDLE + 1;
+            } else {
+                high = MIDDLE;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits a config value into lower case tokens, with any markup (e.g. {@code <br />}) stripped. Class names are also indexed whole so a full class name is an exact match.
+     * @param value The value to tokenize
+     * @param isClassName True if the value is a class name
+     * @return The distinct tokens in the value
+     */
+    static Set<String> tokenize(String value, boolean isClassName) {
+        final Set<String> TOKENS = new HashSet<String>();
+        final String LOWER = MARKUP.matcher(value).replaceAll(" ").toLowerCase();
+        for (String token : WORD_SEPARATOR.split(LOWER)) {
+            if (!token.isEmpty()) {
+                TOKENS.add(token);
+            }
+        }
+        if (isClassName && !LOWER.isEmpty()) {
+            TOKENS.add(WORD_SEPARATOR.matcher(LOWER).replaceAll(""));
+        }
+        return TOKENS;
+    }
+
+    /**
+     * @return Every string that can be made by deleting a single character from the token
+     */
+    private static Set<String> deletionsOf(String token) {
+        final Set<String> DELETIONS = new HashSet<String>();
+        for (int i = 0; i < token.length(); i++) {
+            DELETIONS.add(token.substring(0, i) + token.substring(i + 1));
+        }
+        return DELETIONS;
+    }
+
+    /**
+     * Checks whether two strings are at most one insertion, deletion, substitution or adjacent transposition apart.
+     */
+    private static boolean withinOneEdit(String first, String second) {
+        if (Math.abs(first.length() - second.length()) > 1) {
+            return false;
+        }
+        int start = 0;
+        while (start < first.length() && start < second.length() && first.charAt(start) == second.charAt(start)) {
+            start++;
+        }
+        int firstEnd = first.length();
+        int secondEnd = second.length();
+        while (firstEnd > start && secondEnd > start && first.charAt(firstEnd - 1) == second.charAt(secondEnd - 1)) {
+            firstEnd--;
+            secondEnd--;
+        }
+        final int FIRST_DIFF = firstEnd - start;
+        final int SECOND_DIFF = secondEnd - start;
+        if (FIRST_DIFF <= 1 && SECOND_DIFF <= 1) {
+            return true;
+        }
+        // Adjacent transposition, e.g. "stnaag" and "stanag"
+        return FIRST_DIFF == 2 && SECOND_DIFF == 2
+            && first.charAt(start) == second.charAt(start + 1)
+            && first.charAt(start + 1) == second.charAt(start);
+    }
+
+    /**
+     * @return The number of distinct tokens in the index
+     */
+    public int size() {
+        return tokens.length;
+    }
+}
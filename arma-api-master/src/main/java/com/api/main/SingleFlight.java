@@ -0,0 +1,58 @@
+package com.api.main;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of the same key: the first caller computes the value and every caller that asks for the key while it is running waits for that value instead of computing it again.
+ * Nothing is kept once the computation finishes, caching the value is left to the caller.
+ * @param <K> The key type
+ * @param <V> The value type
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<K, CompletableFuture<V>>();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param key Identifies the computation
+     * @param computation Computes the value, only called if no computation of the key is running
+     * @return The value computed by this caller or by the caller that was already computing it
+     */
+    public V run(K key, Supplier<V> computation) {
+        final CompletableFuture<V> FLIGHT = new CompletableFuture<V>();
+        final CompletableFuture<V> RUNNING = inFlight.putIfAbsent(key, FLIGHT);
+        if (RUNNING != null) {
+            coalesced.incrementAndGet();
+            try {
+                return RUNNING.join();
+            } catch (CompletionException e) {
+                // Rethrow what the computing caller got
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        try {
+            final V VALUE = computation.get();
+            FLIGHT.complete(VALUE);
+            return VALUE;
+        } catch (RuntimeException | Error e) {
+            FLIGHT.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, FLIGHT);
+        }
+    }
+
+    /**
+     * @return The number of callers that waited for another caller's computation instead of computing the value themselves
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+}
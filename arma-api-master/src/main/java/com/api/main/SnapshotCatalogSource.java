@@ -0,0 +1,56 @@
+package com.api.main;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bson.Document;
+
+/**
+ * Catalog source backed by a {@link CatalogSnapshot} file, for read-only nodes that run without a mongo instance. The snapshot is memory mapped by the first {@link #refresh()} and each mod is decoded by its own reader.
+ * Mapping the file is quick, but every config is still decoded onto the heap when the catalog is loaded, so a node is ready to serve once that load finishes rather than once the file is mapped. The snapshot only saves parsing the JSON: the StartupBenchmark has a node ready in about 1.4s from a snapshot against 2.2s from the bundled data files, after a cold start on a single core.
+ */
+public class SnapshotCatalogSource implements CatalogSource {
+    private static Logger LOGGER = Logger.getLogger(SnapshotCatalogSource.class.getName());
+
+    private final Path path;
+    private volatile CatalogSnapshot snapshot = null;
+
+    /**
+     * @param path The snapshot file
+     */
+    public SnapshotCatalogSource(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Maps the snapshot file into memory, unless it has already been mapped.
+     * @throws Exception If the file cannot be read or isn't a snapshot
+     */
+    @Override
+    public synchronized void refresh() throws Exception {
+        if (snapshot != null) {
+            return;
+        }
+        final long START = System.currentTimeMillis();
+        snapshot = CatalogSnapshot.open(path);
+        LOGGER.log(Level.INFO, String.format("[INFO] Mapped snapshot %s with %d configs from %d mods in %dms, configs are decoded when the catalog is loaded", path, snapshot.size(), snapshot.getMods().size(), System.currentTimeMillis() - START));
+    }
+
+    /**
+     * @return A task decoding the configs of each mod in the snapshot, keyed by mod name
+     */
+    @Override
+    public Map<String, Callable<List<Document>>> readers() {
+        final Map<String, Callable<List<Document>>> READERS = new HashMap<String, Callable<List<Document>>>();
+        final CatalogSnapshot SNAPSHOT = snapshot;
+        if (SNAPSHOT != null) {
+            SNAPSHOT.getMods().forEach(mod -> READERS.put(mod, () -> SNAPSHOT.read(mod)));
+        }
+        return READERS;
+    }
+}
@@ -0,0 +1,107 @@
+package com.api.main;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+
+/**
+ * Command line tool converting JSON data files to a {@link CatalogSnapshot} and back. It runs without spring, e.g. after {@code mvn package}:
+ * <pre>
+ * java -cp "target/classes:target/dependency/*" com.api.main.SnapshotConverter to-snapshot src/main/resources/data catalog.snapshot
+ * java -cp "target/classes:target/dependency/*" com.api.main.SnapshotConverter to-json catalog.snapshot catalog.json
+ * </pre>
+ * Inputs to {@code to-snapshot} can be JSON data files or directories holding them. {@code to-json} writes every config to a single data file that the updater and {@code to-snapshot} can read.
+ * The round trip keeps every config, but not the original files: they come back in one file, grouped by mod and type, with one compact config per line.
+ */
+public class SnapshotConverter {
+    private static final long TIMEOUT_MILLIS = 600000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("to-snapshot")) {
+            final List<Document> CONFIGS = readJson(Arrays.asList(args).subList(1, args.length - 1));
+            CatalogSnapshot.write(CONFIGS, Paths.get(args[args.length - 1]));
+            System.out.println(String.format("[SUCCESS] Wrote %d configs to %s (%d bytes)", CONFIGS.size(), args[args.length - 1], Files.size(Paths.get(args[args.length - 1]))));
+        } else if (args.length == 3 && args[0].equals("to-json")) {
+            final List<Document> CONFIGS = readSnapshot(Paths.get(args[1]));
+            writeJson(CONFIGS, Paths.get(args[2]));
+            System.out.println(String.format("[SUCCESS] Wrote %d configs to %s", CONFIGS.size(), args[2]));
+        } else {
+            System.err.println("Usage: SnapshotConverter to-snapshot <json file or directory>... <snapshot>");
+            System.err.println("       SnapshotConverter to-json <snapshot> <json file>");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the configs from JSON data files in parallel, skipping configs without a type like the updater does.
+     * @param inputs JSON data files or directories holding them
+     * @return Every config in the files
+     * @throws Exception If a file cannot be read or parsed
+     */
+    public static List<Document> readJson(List<String> inputs) throws Exception {
+        final List<Path> FILES = new ArrayList<Path>();
+        for (String input : inputs) {
+            final Path PATH = Paths.get(input);
+            if (Files.isDirectory(PATH)) {
+                try (Stream<Path> paths = Files.list(PATH)) {
+                    FILES.addAll(paths.filter(path -> path.toString().endsWith(".json")).sorted().collect(Collectors.toList()));
+                }
+            } else {
+                FILES.add(PATH);
+            }
+        }
+
+        final List<Document> CONFIGS = Collections.synchronizedList(new ArrayList<Document>());
+        final FanOutExecutor FAN_OUT = new FanOutExecutor(Math.max(1, Math.min(FILES.size(), Runtime.getRuntime().availableProcessors())));
+        try {
+            final FanOutExecutor.Result<IngestionPipeline.FileReport> RESULT = new IngestionPipeline(FAN_OUT, 1000, TIMEOUT_MILLIS).ingest(FILES, (mod, batch) -> CONFIGS.addAll(batch));
+            if (RESULT.isPartial()) {
+                throw new Exception("[ERROR] Could not read every data file: " + RESULT.getFailed());
+            }
+        } finally {
+            FAN_OUT.shutdown();
+        }
+        return CONFIGS;
+    }
+
+    /**
+     * @param snapshot A snapshot file
+     * @return Every config in the snapshot, grouped by mod and type
+     * @throws Exception If the snapshot cannot be read
+     */
+    public static List<Document> readSnapshot(Path snapshot) throws Exception {
+        final CatalogSnapshot SNAPSHOT = CatalogSnapshot.open(snapshot);
+        final List<Document> CONFIGS = new ArrayList<Document>(SNAPSHOT.size());
+        for (String mod : SNAPSHOT.getMods()) {
+            CONFIGS.addAll(SNAPSHOT.read(mod));
+        }
+        return CONFIGS;
+    }
+
+    /**
+     * Writes configs as a JSON data file, one config per line.
+     * @param configs The configs to write
+     * @param file The data file, replaced if it exists
+     * @throws Exception If the file cannot be written
+     */
+    public static void writeJson(List<Document> configs, Path file) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("[\n");
+            for (int i = 0; i < configs.size(); i++) {
+                writer.write(configs.get(i).toJson());
+                writer.write(i < configs.size() - 1 ? ",\n" : "\n");
+            }
+            writer.write("]\n");
+        }
+    }
+}
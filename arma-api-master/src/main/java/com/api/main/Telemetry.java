@@ -0,0 +1,180 @@
+package com.api.main;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The application's meters, registered with the global registry that spring boot binds its Prometheus registry to, so they are exposed on the {@code /metrics} endpoint along with the per endpoint {@code http.server.requests} timers.
+ * Meters used on the request path are looked up once per endpoint and held by an {@link Endpoint}, so recording a request doesn't have to find them again.
+ */
+public class Telemetry {
+    private static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+
+    private Telemetry() {
+    }
+
+    /**
+     * @param name The route of the endpoint, e.g. /classes
+     * @return The meters of the endpoint
+     */
+    public static Endpoint endpoint(String name) {
+        return new Endpoint(name);
+    }
+
+    /**
+     * Times a stage of a catalog reload.
+     * @param stage The stage, e.g. serialize or sort
+     * @param startNanos When the stage started, from {@link System#nanoTime()}
+     * @return When the stage ended, to start the next stage from
+     */
+    public static long reloadStage(String stage, long startNanos) {
+        final long END = System.nanoTime();
+        Timer.builder("arma.catalog.reload")
+            .description("Time spent in each stage of a catalog reload")
+            .tag("stage", stage)
+            .register(REGISTRY)
+            .record(END - startNanos, TimeUnit.NANOSECONDS);
+        return END;
+    }
+
+    /**
+     * @param mod The mod read by the fetch
+     * @return The timer for reading a mod from the catalog source (e.g. its mongo collection)
+     */
+    public static Timer fetch(String mod) {
+        return Timer.builder("arma.catalog.fetch")
+            .description("Time spent reading the configs of a mod from the catalog source")
+            .tag("mod", mod)
+            .register(REGISTRY);
+    }
+
+    /**
+     * Records the outcome of ingesting a data file in the updater.
+     * @param file The name of the data file
+     * @param written The number of configs written
+     * @param skipped The number of configs skipped because they were invalid
+     */
+    public static void ingested(String file, long written, long skipped) {
+        Counter.builder("arma.updater.documents").description("Configs written by the updater").tag("file", file).register(REGISTRY).increment(written);
+        Counter.builder("arma.updater.skipped").description("Configs skipped by the updater").tag("file", file).tag("reason", "invalid").register(REGISTRY).increment(skipped);
+    }
+
+    /**
+     * Records the configs the delta updater left as they were because their content hash didn't change.
+     * @param file The name of the data file, or {@code delta} for every file diffed at once
+     * @param unchanged The number of unchanged configs
+     */
+    public static void unchanged(String file, long unchanged) {
+        Counter.builder("arma.updater.skipped").description("Configs skipped by the updater").tag("file", file).tag("reason", "unchanged").register(REGISTRY).increment(unchanged);
+    }
+
+    /**
+     * Exposes the number of log records that were dropped or suppressed to keep logging off the request path.
+     * @param handler The asynchronous handler the application logs through
+     * @param requestLog The sampler of the per request log lines
+     */
+    public static void logging(AsyncLogHandler handler, LogSampler requestLog) {
+        FunctionCounter.builder("arma.log.dropped", handler, AsyncLogHandler::getDropped).description("Log records dropped because the log buffer was full").register(REGISTRY);
+        FunctionCounter.builder("arma.log.suppressed", requestLog, LogSampler::getSuppressed).description("Per request log lines over the rate limit").register(REGISTRY);
+        Gauge.builder("arma.log.queued", handler, AsyncLogHandler::getQueued).description("Log records waiting to be written").register(REGISTRY);
+    }
+
+    /**
+     * Exposes how many requests are turned away or coalesced to keep load off the catalog cache.
+     * @param admission Decides which requests are served
+     * @param catalog The catalog cache requests are served from
+     */
+    public static void admission(Admission admission, CatalogCache catalog) {
+        FunctionCounter.builder("arma.requests.throttled", admission, Admission::getRateLimited).description("Requests turned away with a 429 or 503").tag("reason", "rate-limit").register(REGISTRY);
+        FunctionCounter.builder("arma.requests.throttled", admission, Admission::getShed).description("Requests turned away with a 429 or 503").tag("reason", "full-scans").register(REGISTRY);
+        Gauge.builder("arma.requests.fullscans", admission, Admission::getFullScans).description("Unpaged responses being written").register(REGISTRY);
+        Gauge.builder("arma.ratelimit.clients", admission, Admission::getTrackedClients).description("Clients with a rate limit bucket").register(REGISTRY);
+        FunctionCounter.builder("arma.cache.coalesced", catalog, CatalogCache::getCoalesced).description("Requests that waited for an identical request instead of computing the same result").register(REGISTRY);
+    }
+
+    /**
+     * @return The registry the application's meters are registered with
+     */
+    public static MeterRegistry registry() {
+        return REGISTRY;
+    }
+
+    /**
+     * The meters of a single endpoint: a timer per stage of the request, and the size and number of configs of each response.
+     */
+    public static class Endpoint {
+        private final Timer validation;
+        private final Timer lookup;
+        private final Timer serialization;
+        private final DistributionSummary responseSize;
+        private final DistributionSummary documents;
+
+        private Endpoint(String name) {
+            this.validation = stage(name, "validation");
+            this.lookup = stage(name, "lookup");
+            this.serialization = stage(name, "serialization");
+            this.responseSize = DistributionSummary.builder("arma.response.size")
+                .description("Size of the response bodies")
+                .baseUnit("bytes")
+                .tag("endpoint", name)
+                .publishPercentileHistogram()
+                .register(REGISTRY);
+            this.documents = DistributionSummary.builder("arma.response.documents")
+                .description("Number of configs in each response")
+                .tag("endpoint", name)
+                .publishPercentileHistogram()
+                .register(REGISTRY);
+        }
+
+        private static Timer stage(String name, String stage) {
+            return Timer.builder("arma.request.stage")
+                .description("Time spent in each stage of a request")
+                .tag("endpoint", name)
+                .tag("stage", stage)
+                .register(REGISTRY);
+        }
+
+        /**
+         * Times the validation of the request parameters.
+         * @param startNanos When the stage started, from {@link System#nanoTime()}
+         * @return When the stage ended, to start the next stage from
+         */
+        public long validated(long startNanos) {
+            return record(validation, startNanos);
+        }
+
+        /**
+         * Times the lookup of the configs in the catalog cache (filtering, search, sorting).
+         * @param startNanos When the stage started, from {@link System#nanoTime()}
+         * @return When the stage ended, to start the next stage from
+         */
+        public long lookedUp(long startNanos) {
+            return record(lookup, startNanos);
+        }
+
+        /**
+         * Times building (or fetching the cached) response body, and records its size.
+         * @param startNanos When the stage started, from {@link System#nanoTime()}
+         * @param bytes The size of the body
+         * @param count The number of configs in the body
+         */
+        public void serialized(long startNanos, long bytes, int count) {
+            record(serialization, startNanos);
+            responseSize.record(bytes);
+            documents.record(count);
+        }
+
+        private static long record(Timer timer, long startNanos) {
+            final long END = System.nanoTime();
+            timer.record(END - startNanos, TimeUnit.NANOSECONDS);
+            return END;
+        }
+    }
+}
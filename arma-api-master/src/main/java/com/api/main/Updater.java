@@ -1,135 +1,270 @@
 package com.api.main;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.mongodb.MongoClient;
-import com.mongodb.client.MongoCollection;
-import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.MongoIterable;
-import com.mongodb.client.model.Indexes;
+import java.util.stream.Stream;
 
 import org.bson.Document;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
+import org.springframework.util.DigestUtils;
 
 public class Updater {
     private static Logger LOGGER = Logger.getLogger(Updater.class.getName());
-    Boolean fileParsed;
     Boolean success;
+    private final Path dataDirectory;
+
+    /**
+     * Updates from the resources/data folder of the working directory.
+     */
+    public Updater() {
+        this(new File(System.getProperty("user.dir") + "/src/main/resources/data").toPath());
+    }
+
+    /**
+     * @param dataDirectory The folder holding the JSON data files
+     */
+    public Updater(Path dataDirectory) {
+        this.dataDirectory = dataDirectory;
+    }
 
     /**
-     * Backs up and updates the given mongo database with the contents of the resources/data folder.
-     * @param client Mongo client that is connected to the target mongo instance
-     * @param database Mongo database to backup and update
-     * @return True if the update and backup completed successfully, false otherwise
+     * Loads the contents of the data folder into a new version of the mod collections, then makes it live once it is complete and indexed. The version it replaces is kept so the update can be rolled back, and any older versions are dropped.
+     * @param registry Registry of the mod collections in the mongo database to update, refreshed once the new version is live
+     * @param pipeline Pipeline to read the data files with
+     * @return True if the new version was loaded and published, false if it failed and the live version was left in place
      * @throws IOException If a JSON data file or it's parent directory cannot be accessed
      */
-    public Boolean update(MongoClient client, MongoDatabase database) throws IOException {
+    public Boolean update(CollectionRegistry registry, IngestionPipeline pipeline) throws IOException {
 
-        // Setup Json parser and Mongodb
+        // Setup Mongodb
         success = true;
-        final JSONParser PARSER = new JSONParser();
-        final MongoDatabase BACKUP_DATABASE = client.getDatabase(database.getName() + "-backup");
-
-        // Backup and reset db
-        MongoIterable<String> collections = database.listCollectionNames();
-        for (String collectionName : collections) {
-            LOGGER.log(Level.INFO, "[INFO] Backing up and resetting " + collectionName);
-
-            // Delete existing valid backup if it exists
-            MongoCollection<Document> backupCollection = BACKUP_DATABASE.getCollection(collectionName);
-            if (backupCollection.estimatedDocumentCount() > 0) {
-                backupCollection.deleteMany(new Document());
-            }
+        final CollectionStore STORE = registry.getStore();
+
+        // Stage the update in a version that isn't live, clearing out anything left behind by an earlier failed run
+        registry.refresh();
+        final long VERSION = registry.nextVersion();
+        final String STAGING_PREFIX = CollectionRegistry.prefixOf(VERSION);
+        dropVersion(STORE, VERSION);
+        LOGGER.log(Level.INFO, String.format("[INFO] Staging version %d in %s* collections, version %d stays live until it is complete", VERSION, STAGING_PREFIX, registry.getVersion()));
+
+        // Stream every data file in parallel, inserting the configs into their mod collection in unordered batches
+        final List<Path> FILES = listDataFiles();
 
-            // Copy contents of collection to backup
-            MongoCollection<Document> prodCollection = database.getCollection(collectionName);
-            ArrayList<Document> prodContents = new ArrayList<Document>();
-            prodCollection.find().into(prodContents);
-            if (prodContents.size() > 0) {
-                backupCollection.insertMany(prodContents);
+        LOGGER.log(Level.INFO, String.format("[INFO] Ingesting %d data files...", FILES.size()));
+        final FanOutExecutor.Result<IngestionPipeline.FileReport> INGESTED = pipeline.ingest(FILES, (mod, batch) ->
+            STORE.insert(STAGING_PREFIX + mod, batch)
+        );
+        INGESTED.getFailed().forEach((path, reason) -> {
+            LOGGER.log(Level.SEVERE, "[ERROR] Failed to ingest " + path + ": " + reason);
+            success = false;
+        });
+
+        // Report the throughput of each file
+        long written = 0;
+        for (Path path : FILES) {
+            final IngestionPipeline.FileReport REPORT = INGESTED.getCompleted().get(path.toString());
+            if (REPORT != null) {
+                LOGGER.log(Level.INFO, "[SUCCESS] " + REPORT);
+                Telemetry.ingested(REPORT.getName(), REPORT.getWritten(), REPORT.getSkipped());
+                written += REPORT.getWritten();
             }
+        }
+        LOGGER.log(Level.INFO, String.format("[INFO] %d configs ingested from %d of %d data files", written, INGESTED.getCompleted().size(), FILES.size()));
 
-            // Delete contents of prod collection
-            prodCollection.deleteMany(new Document());
-            prodCollection.dropIndexes();
+        if (!success) {
+            LOGGER.log(Level.SEVERE, String.format("[ERROR] Discarding version %d, version %d stays live", VERSION, registry.getVersion()));
+            dropVersion(STORE, VERSION);
+            return success;
         }
 
-        // In final backup stage, create the indexes
-        for (String backupCollectionName : BACKUP_DATABASE.listCollectionNames()) {
-            MongoCollection<Document> backupCollection = BACKUP_DATABASE.getCollection(backupCollectionName);
-            backupCollection.dropIndexes();
-            backupCollection.createIndex(Indexes.text());
+        // Index the staged collections before they go live
+        for (String collectionName : STORE.listCollectionNames()) {
+            if (CollectionRegistry.versionOf(collectionName) == VERSION) {
+                LOGGER.log(Level.INFO, "[INFO] Creating index for " + collectionName + " collection...");
+                STORE.createIndex(collectionName, "class");
+            }
         }
 
-        Files.list(new File(System.getProperty("user.dir") + "/src/main/resources/data").toPath()).forEach(path -> {
-            // Skip non json files
-            if (!path.toString().contains(".json")) {
-                LOGGER.log(Level.INFO, "[INFO] Skipping non json file in data directory : " + path);
-                return;
+        // Record the content hashes computed while ingesting, for the delta updater to compare against
+        try {
+            for (Path path : FILES) {
+                final IngestionPipeline.FileReport REPORT = INGESTED.getCompleted().get(path.toString());
+                saveHashes(STORE, VERSION, path, REPORT.getHash(), REPORT.getConfigHashes());
             }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[WARNING] Could not record content hashes, the next delta update will run a full update", e);
+        }
+
+        // Switch over, then drop everything but the live version and the one kept for rollback
+        registry.publish(VERSION);
+        registry.dropRetired();
+
+        LOGGER.log(Level.INFO, "[INFO] Updater finished, returning to main spring boot thread...");
+        return success;
+    }
+
+    /**
+     * Applies only the changes in the data folder since the last update. Nothing is written if no data file's content hash has changed, otherwise the live version is copied into a new version, every data file is diffed at once so only added, changed or removed configs are written to the copy, and the copy is published once every change is in. A failed delta leaves the live version untouched.
+     * Falls back to a full {@link #update(CollectionRegistry, IngestionPipeline)} if the live version has no recorded hashes, as there would be no way to tell which configs were removed.
+     * @param registry Registry of the mod collections in the mongo database to update, refreshed once the new version is live
+     * @param pipeline Pipeline to read the data files with
+     * @return True if every change was applied and published, false if it failed and the live version was left in place
+     * @throws IOException If the data directory or a data file cannot be accessed
+     */
+    public Boolean delta(CollectionRegistry registry, IngestionPipeline pipeline) throws IOException {
+        success = true;
+        final CollectionStore STORE = registry.getStore();
+        registry.refresh();
+        final long VERSION = registry.getVersion();
+
+        // Hashes recorded by the last update of the live version, keyed by file name
+        final Map<String, Document> RECORDED = new HashMap<String, Document>();
+        STORE.find(CollectionRegistry.HASHES_COLLECTION, "version", VERSION).forEach(recorded -> RECORDED.put(recorded.getString("file"), recorded));
+        if (RECORDED.isEmpty()) {
+            LOGGER.log(Level.WARNING, String.format("[WARNING] No content hashes recorded for version %d, running a full update instead", VERSION));
+            return update(registry, pipeline);
+        }
+
+        final List<Path> FILES = listDataFiles();
+        final Map<Path, String> FILE_HASHES = new LinkedHashMap<Path, String>();
+        boolean modified = FILES.size() != RECORDED.size();
+        for (Path path : FILES) {
+            FILE_HASHES.put(path, hashOf(path));
+            final Document RECORD = RECORDED.get(path.getFileName().toString());
+            modified |= RECORD == null || !FILE_HASHES.get(path).equals(RECORD.getString("hash"));
+        }
+        if (!modified) {
+            LOGGER.log(Level.INFO, String.format("[INFO] Delta update finished: %d unchanged data files skipped", FILES.size()));
+            return success;
+        }
 
-            fileParsed = true;
-            LOGGER.log(Level.INFO, "[INFO] Parsing " + path);
+        // Diff every data file against every recorded one, so configs are matched within their mod regardless of the file they are in
+        final List<Document> PREVIOUS = new ArrayList<Document>();
+        RECORDED.values().forEach(record -> PREVIOUS.addAll(record.getList("configs", Document.class)));
+        final List<Document> CURRENT = new ArrayList<Document>();
+        final Map<Path, IngestionPipeline.FileReport> REPORTS = new HashMap<Path, IngestionPipeline.FileReport>();
+        long skipped = 0;
+        for (Path path : FILES) {
             try {
-                // Read JSON file
-                final JSONArray jsonData = (JSONArray) PARSER.parse(new FileReader(path.toString()));
-                jsonData.forEach(configStr -> {
-                    try {
-                        // Parse json string
-                        final JSONObject configObj = (JSONObject) configStr;
-
-                        // Create mongo document if there is a verified type, need a long conditional as empty types are misleading
-                        if (String.valueOf(configObj.get("type")) != "" && String.valueOf(configObj.get("type")) != "\"\"" && String.valueOf(configObj.get("type")).isEmpty() == false) {
-                            final Document configDoc = new Document(
-                                new ObjectMapper().readValue(configObj.toJSONString(), HashMap.class)
-                            );
-
-                            // Calculate target collection based off mod and append
-                            LOGGER.log(Level.INFO, "[INFO] Adding new object to database from " + path + "\n" + configObj);
-                            database.getCollection("data." + configObj.get("mod").toString()).insertOne(configDoc);
-                        }
-                    } catch (JsonProcessingException e) {
-                        LOGGER.log(Level.WARNING, "[ERROR] Could not create mongo document from config object:\n" + configStr);
-                        fileParsed = false;
-                    }
-                });
-            } catch (FileNotFoundException | ParseException e) {
-                LOGGER.log(Level.SEVERE, "[ERROR] Could not find or read " + path);
-                fileParsed = false;
-            } catch (IOException e) {
-                LOGGER.log(Level.SEVERE, "[ERROR] Could not parse " + path + " to a JSON Array");
-                fileParsed = false;
+                REPORTS.put(path, pipeline.ingest(path, (mod, batch) -> CURRENT.addAll(batch)));
+                skipped += REPORTS.get(path).getSkipped();
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "[ERROR] Failed to read " + path + ", no changes were applied", e);
+                return false;
             }
+        }
+        final ConfigDiff DIFF = new ConfigDiff(PREVIOUS, CURRENT);
+
+        // Stage the changes on a copy of the live version, so a mod that fails half way never goes live
+        final long STAGED = registry.nextVersion();
+        final String STAGING_PREFIX = CollectionRegistry.prefixOf(STAGED);
+        dropVersion(STORE, STAGED);
+        LOGGER.log(Level.INFO, String.format("[INFO] Staging version %d in %s* collections as a copy of version %d with the changes applied, version %d stays live until it is complete", STAGED, STAGING_PREFIX, VERSION, VERSION));
+        try {
+            registry.getCollections().forEach((mod, collectionName) -> STORE.copy(collectionName, STAGING_PREFIX + mod));
+        } catch (Exception e) {
+            LOGGER.log(Level.SEVERE, String.format("[ERROR] Failed to copy version %d, no changes were applied", VERSION), e);
+            success = false;
+        }
+        if (success) {
+            apply(STORE, STAGING_PREFIX, DIFF);
+        }
+        if (!success) {
+            LOGGER.log(Level.SEVERE, String.format("[ERROR] Discarding version %d, version %d stays live", STAGED, VERSION));
+            dropVersion(STORE, STAGED);
+            return success;
+        }
 
-            if (fileParsed) {
-                LOGGER.log(Level.INFO, "[SUCCESS] " + path + " successfully parsed and added to mongo db!");
-            } else {
-                LOGGER.log(Level.SEVERE, "[ERROR] Failed to parse file, see messages above for more info: " + path);
+        // Index the staged collections, including any created for new mods, before they go live
+        for (String collectionName : STORE.listCollectionNames()) {
+            if (CollectionRegistry.versionOf(collectionName) == STAGED) {
+                STORE.createIndex(collectionName, "class");
+            }
+        }
+        try {
+            for (Path path : FILES) {
+                saveHashes(STORE, STAGED, path, REPORTS.get(path).getHash(), REPORTS.get(path).getConfigHashes());
+            }
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[WARNING] Could not record content hashes, the next delta update will run a full update", e);
+        }
+        Telemetry.ingested("delta", DIFF.getAdded() + DIFF.getChanged(), skipped);
+        Telemetry.unchanged("delta", DIFF.getUnchanged());
+
+        // Switch over, then drop everything but the live version and the one kept for rollback
+        registry.publish(STAGED);
+        registry.dropRetired();
+
+        LOGGER.log(Level.INFO, "[INFO] Delta update finished: " + DIFF);
+        return success;
+    }
+
+    /**
+     * Deletes every copy of the added, changed and removed configs, then inserts the current copies of the added and changed ones, in one ordered write per mod.
+     */
+    private void apply(CollectionStore store, String prefix, ConfigDiff diff) {
+        final Set<String> MODS = new HashSet<String>(diff.getDeletes().keySet());
+        MODS.addAll(diff.getInserts().keySet());
+        MODS.forEach(mod -> {
+            try {
+                final List<String> DELETES = diff.getDeletes().getOrDefault(mod, List.of());
+                final List<Document> INSERTS = diff.getInserts().getOrDefault(mod, List.of());
+                store.replaceClasses(prefix + mod, DELETES, INSERTS);
+                LOGGER.log(Level.INFO, String.format("[SUCCESS] %s: %d classes deleted, %d configs inserted", mod, DELETES.size(), INSERTS.size()));
+            } catch (Exception e) {
+                LOGGER.log(Level.SEVERE, "[ERROR] Failed to apply changes to mod " + mod, e);
                 success = false;
             }
         });
+    }
+
+    private static void saveHashes(CollectionStore store, long version, Path path, String fileHash, List<Document> configHashes) {
+        final String FILE = path.getFileName().toString();
+        store.upsert(CollectionRegistry.HASHES_COLLECTION, new Document("_id", version + ":" + FILE).append("version", version).append("file", FILE).append("hash", fileHash).append("configs", configHashes));
+    }
 
-        // Update indices
-        for (String collectionName : database.listCollectionNames()) {
-            LOGGER.log(Level.INFO, "[INFO] Updating index for " + collectionName + " collection...");
-            database.getCollection(collectionName).createIndex(Indexes.text());
+    private static String hashOf(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return DigestUtils.md5DigestAsHex(input);
         }
+    }
 
-        LOGGER.log(Level.INFO, "[INFO] Updater finished, returning to main spring boot thread...");
-        return success;
+    /**
+     * @return The JSON files in the data folder, sorted by name
+     * @throws IOException If the data directory cannot be accessed
+     */
+    private List<Path> listDataFiles() throws IOException {
+        final List<Path> FILES = new ArrayList<Path>();
+        try (Stream<Path> paths = Files.list(dataDirectory)) {
+            paths.sorted().forEach(path -> {
+                // Skip non json files
+                if (!path.toString().contains(".json")) {
+                    LOGGER.log(Level.INFO, "[INFO] Skipping non json file in data directory : " + path);
+                    return;
+                }
+                FILES.add(path);
+            });
+        }
+        return FILES;
+    }
+
+    private static void dropVersion(CollectionStore store, long version) {
+        for (String collectionName : store.listCollectionNames()) {
+            if (CollectionRegistry.versionOf(collectionName) == version) {
+                store.drop(collectionName);
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
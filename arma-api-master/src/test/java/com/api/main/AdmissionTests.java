@@ -0,0 +1,119 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+class AdmissionTests {
+
+    @Test
+    void rateLimitsEachClient() throws Exception {
+        final Admission ADMISSION = new Admission(1, 3, -1);
+        for (int i = 0; i < 3; i++) {
+            ADMISSION.admit("10.0.0.1", false).close();
+        }
+        final RetryLaterException LIMITED = assertThrows(RetryLaterException.class, () -> ADMISSION.admit("10.0.0.1", false));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, LIMITED.getStatus());
+        assertEquals(1, LIMITED.getRetryAfterSeconds());
+        assertEquals(1, ADMISSION.getRateLimited());
+
+        // Other clients have their own bucket, and no rate disables the limit
+        ADMISSION.admit("10.0.0.2", false).close();
+        final Admission UNLIMITED = new Admission(-1, 0, -1);
+        for (int i = 0; i < 100; i++) {
+            UNLIMITED.admit("10.0.0.1", true).close();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new Admission(0, 3, -1));
+    }
+
+    @Test
+    void sweepsIdleClientsAtMostOncePerInterval() throws Exception {
+        final Admission ADMISSION = new Admission(1000, 1, -1, 2, TimeUnit.HOURS.toNanos(1));
+        for (String client : List.of("10.0.0.1", "10.0.0.2", "10.0.0.3")) {
+            ADMISSION.admit(client, false).close();
+        }
+        Thread.sleep(10);
+
+        // Over the limit with every bucket refilled, so the first sweep drops them all
+        ADMISSION.admit("10.0.0.4", false).close();
+        assertEquals(1, ADMISSION.getTrackedClients());
+
+        // The next sweep isn't due yet, so idle clients are kept rather than scanned for on every request
+        for (String client : List.of("10.0.0.5", "10.0.0.6", "10.0.0.7")) {
+            ADMISSION.admit(client, false).close();
+        }
+        Thread.sleep(10);
+        ADMISSION.admit("10.0.0.8", false).close();
+        assertEquals(5, ADMISSION.getTrackedClients());
+    }
+
+    @Test
+    void shedsFullScansOverTheLimit() throws Exception {
+        final Admission ADMISSION = new Admission(-1, 0, 2);
+        final Admission.Ticket FIRST = ADMISSION.admit("10.0.0.1", true);
+        final Admission.Ticket SECOND = ADMISSION.admit("10.0.0.2", true);
+        ADMISSION.admit("10.0.0.3", false).close();
+        assertEquals(2, ADMISSION.getFullScans());
+
+        final RetryLaterException SHED = assertThrows(RetryLaterException.class, () -> ADMISSION.admit("10.0.0.3", true));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, SHED.getStatus());
+        assertEquals(1, ADMISSION.getShed());
+
+        FIRST.close();
+        ADMISSION.admit("10.0.0.3", true).close();
+        SECOND.close();
+        assertEquals(0, ADMISSION.getFullScans());
+        assertTrue(Admission.isFullScan(null) && Admission.isFullScan("-1") && !Admission.isFullScan("50"));
+    }
+
+    @Test
+    void coalescesConcurrentComputations() throws Exception {
+        final SingleFlight<String, Integer> FLIGHTS = new SingleFlight<String, Integer>();
+        final AtomicInteger COMPUTED = new AtomicInteger();
+        final CountDownLatch STARTED = new CountDownLatch(1);
+        final CountDownLatch RELEASE = new CountDownLatch(1);
+        final ExecutorService THREADS = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Integer>> RESULTS = new ArrayList<Future<Integer>>();
+            RESULTS.add(THREADS.submit(() -> FLIGHTS.run("all", () -> {
+                STARTED.countDown();
+                try {
+                    RELEASE.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return COMPUTED.incrementAndGet();
+            })));
+            STARTED.await();
+            for (int i = 0; i < 3; i++) {
+                RESULTS.add(THREADS.submit(() -> FLIGHTS.run("all", COMPUTED::incrementAndGet)));
+            }
+            while (FLIGHTS.getCoalesced() < 3) {
+                Thread.sleep(1);
+            }
+            RELEASE.countDown();
+
+            for (Future<Integer> result : RESULTS) {
+                assertEquals(1, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, COMPUTED.get());
+
+            // Nothing is kept once the computation is done
+            assertEquals(2, FLIGHTS.run("all", COMPUTED::incrementAndGet));
+        } finally {
+            THREADS.shutdownNow();
+        }
+    }
+}
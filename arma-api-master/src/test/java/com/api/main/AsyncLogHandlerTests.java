@@ -0,0 +1,96 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import org.junit.jupiter.api.Test;
+
+class AsyncLogHandlerTests {
+
+    @Test
+    void writesFormattedRecordsInOrder() {
+        final CapturingHandler TARGET = new CapturingHandler(null);
+        final AsyncLogHandler HANDLER = new AsyncLogHandler(16, List.of(TARGET));
+        for (int i = 0; i < 10; i++) {
+            final LogRecord RECORD = new LogRecord(Level.INFO, "[INFO] request page={0,number,#}");
+            RECORD.setParameters(new Object[] {i * 1000});
+            HANDLER.publish(RECORD);
+        }
+        HANDLER.close();
+
+        assertEquals(10, TARGET.lines.size());
+        assertEquals("[INFO] request page=0", TARGET.lines.get(0));
+        assertEquals("[INFO] request page=9000", TARGET.lines.get(9));
+    }
+
+    @Test
+    void dropsRecordsInsteadOfBlocking() throws InterruptedException {
+        final CountDownLatch RELEASE = new CountDownLatch(1);
+        final CapturingHandler TARGET = new CapturingHandler(RELEASE);
+        final AsyncLogHandler HANDLER = new AsyncLogHandler(4, List.of(TARGET));
+        for (int i = 0; i < 100; i++) {
+            HANDLER.publish(new LogRecord(Level.INFO, "[INFO] line " + i));
+        }
+        assertTrue(HANDLER.getDropped() > 0);
+
+        RELEASE.countDown();
+        HANDLER.close();
+        assertTrue(TARGET.lines.get(TARGET.lines.size() - 1).startsWith("[WARNING] Log buffer was full, "));
+    }
+
+    @Test
+    void limitsLinesPerSecond() {
+        final LogSampler SAMPLER = new LogSampler(3);
+        int sampled = 0;
+        for (int i = 0; i < 10; i++) {
+            sampled += SAMPLER.sample() ? 1 : 0;
+        }
+        // The window may roll over once mid loop
+        assertTrue(sampled >= 3 && sampled <= 6);
+        assertEquals(10 - sampled, SAMPLER.getSuppressed());
+        assertFalse(new LogSampler(0).sample());
+    }
+
+    /**
+     * Records the formatted messages it is given, optionally holding up the first one until released.
+     */
+    private static class CapturingHandler extends Handler {
+        private final List<String> lines = new CopyOnWriteArrayList<String>();
+        private final SimpleFormatter formatter = new SimpleFormatter();
+        private CountDownLatch release;
+
+        private CapturingHandler(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void publish(LogRecord record) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                release = null;
+            }
+            lines.add(formatter.formatMessage(record));
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
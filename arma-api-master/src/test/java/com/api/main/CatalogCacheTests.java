@@ -0,0 +1,144 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CatalogCacheTests {
+
+    private CatalogCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new CatalogCache(2, 16);
+        cache.load(Map.of(
+            "vanilla", List.of(
+                new Document("class", "30Rnd_556x45_Stanag").append("name", "5.56 mm 30rnd Mag").append("type", "Magazines").append("count", 30).append("weight", 8),
+                new Document("class", "B_AssaultPack_khk").append("name", "Assault Pack (Khaki)").append("type", "Backpacks").append("weight", 20)
+            ),
+            "ace", List.of(
+                new Document("class", "ACE_Banana").append("name", "Banana").append("type", "Tools").append("weight", 1)
+            )
+        ));
+    }
+
+    @Test
+    void filtersByModAndType() {
+        assertTrue(cache.isLoaded());
+        assertEquals(3, cache.size());
+        assertEquals(3, cache.get("", "").size());
+        assertEquals(2, cache.get("vanilla", "").size());
+        assertEquals(1, cache.get("", "Tools").size());
+        assertEquals(1, cache.get("vanilla", "Magazines").size());
+        assertTrue(cache.get("ace", "Magazines").isEmpty());
+        assertTrue(cache.get("rhs", "").isEmpty());
+    }
+
+    @Test
+    void searchesTextAndNumbers() {
+        assertEquals("ACE_Banana", cache.search("banana").getConfigs().get(0).get("class"));
+        assertEquals(1, cache.search("30").size());
+        assertEquals(1, cache.search("8").size());
+        assertEquals(2, cache.search("banana khaki").size());
+        assertTrue(cache.search("missing").isEmpty());
+    }
+
+    @Test
+    void servesPreSerializedBodiesAndPages() {
+        CatalogSlice vanilla = cache.get("vanilla", "");
+        String body = new String(vanilla.getBody().getBytes(), StandardCharsets.UTF_8);
+        assertEquals(String.valueOf(List.of(vanilla.getConfigs().get(0).toJson(), vanilla.getConfigs().get(1).toJson())), body);
+        assertTrue(vanilla.getBody().getEtag().matches("\"[0-9a-f]{32}\""));
+
+        JsonBody firstPage = cache.page(vanilla, 0, 1);
+        assertSame(firstPage, cache.page(vanilla, 0, 1));
+        assertEquals("[" + vanilla.getConfigs().get(0).toJson() + "]", new String(firstPage.getBytes(), StandardCharsets.UTF_8));
+        assertNotEquals(firstPage.getEtag(), cache.page(vanilla, 1, 1).getEtag());
+        assertEquals("[]", new String(cache.page(vanilla, 5, 1).getBytes(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void pagesByKeysetCursorInClassOrder() {
+        CatalogSlice all = cache.get("", "");
+        assertEquals(List.of("30Rnd_556x45_Stanag", "ACE_Banana", "B_AssaultPack_khk"), all.getConfigs().stream().map(CatalogSlice::classOf).collect(Collectors.toList()));
+
+        Document first = Document.parse(new String(cache.after(all, "", 2).getBytes(), StandardCharsets.UTF_8));
+        assertEquals(3, first.get("total"));
+        assertEquals("ACE_Banana", first.get("next"));
+        assertEquals(2, first.getList("configs", Document.class).size());
+
+        Document last = Document.parse(new String(cache.after(all, "ACE_Banana", 2).getBytes(), StandardCharsets.UTF_8));
+        assertEquals(null, last.get("next"));
+        assertEquals("B_AssaultPack_khk", last.getList("configs", Document.class).get(0).get("class"));
+    }
+
+    @Test
+    void cachesSearchResultsUntilEvictedOrReloaded() {
+        CatalogSlice first = cache.search("banana");
+        assertSame(first, cache.search("banana"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // Least recently used result is evicted once the bound is reached
+        cache.search("pack");
+        cache.search("mag");
+        cache.search("banana");
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getMisses());
+
+        cache.load(Map.of());
+        assertFalse(cache.search("banana").size() > 0);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void cachesPagesOfTheCurrentCatalogOnly() {
+        final CatalogSlice PREVIOUS = cache.get("vanilla", "");
+        final JsonBody PAGE = cache.page(PREVIOUS, 0, 1);
+        assertSame(PAGE, cache.page(PREVIOUS, 0, 1));
+
+        // A request still holding a slice of the previous catalog is served, but its pages and projections aren't kept
+        cache.load(Map.of("vanilla", List.of(new Document("class", "B_AssaultPack_khk").append("type", "Backpacks"))));
+        assertNotSame(cache.page(PREVIOUS, 0, 1), cache.page(PREVIOUS, 0, 1));
+        assertNotSame(cache.project(PREVIOUS, List.of("class"), false), cache.project(PREVIOUS, List.of("class"), false));
+
+        final CatalogSlice CURRENT = cache.get("vanilla", "");
+        assertSame(cache.page(CURRENT, 0, 1), cache.page(CURRENT, 0, 1));
+        assertSame(cache.project(CURRENT, List.of("class"), false), cache.project(CURRENT, List.of("class"), false));
+    }
+
+    @Test
+    void projectsAndCompactsFields() throws Exception {
+        CatalogSlice vanilla = cache.get("vanilla", "");
+        assertSame(vanilla, cache.project(vanilla, List.of(), false));
+
+        CatalogSlice projected = cache.project(vanilla, List.of("name", "class", "count"), true);
+        assertSame(projected, cache.project(vanilla, List.of("name", "class", "count"), true));
+        assertEquals(vanilla.size(), projected.size());
+        assertEquals("[{\"name\":\"5.56 mm 30rnd Mag\",\"class\":\"30Rnd_556x45_Stanag\",\"count\":30}, {\"name\":\"Assault Pack (Khaki)\",\"class\":\"B_AssaultPack_khk\"}]",
+            new String(projected.getBody().getBytes(), StandardCharsets.UTF_8));
+
+        JsonBody body = projected.getBody();
+        assertTrue(JsonBody.acceptsGzip("deflate, gzip;q=0.5"));
+        assertFalse(JsonBody.acceptsGzip("gzip;q=0"));
+        assertFalse(JsonBody.acceptsGzip(null));
+        assertNotEquals(body.getEtag(), body.getGzipEtag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body.getGzipped()))) {
+            assertEquals(new String(body.getBytes(), StandardCharsets.UTF_8), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    private static Document config(String className, String mod, String type) {
+        return new Document("class", className).append("mod", mod).append("type", type)
+            .append("image", "\\A3\\Weapons_F\\Data\\UI\\" + className + "_CA.paa");
+    }
+
+    @Test
+    void roundTripsEveryValueType() throws Exception {
+        final Document CONFIG = config("arifle_MX_F", "vanilla", "Primaries")
+            .append("count", 30).append("mass", 5000000000L).append("weight", 8.0).append("scope", true)
+            .append("description", null).append("muzzles", Arrays.asList("this", "safety"));
+        final Path SNAPSHOT = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(Arrays.asList(CONFIG), SNAPSHOT);
+
+        final Document READ = CatalogSnapshot.open(SNAPSHOT).read("vanilla").get(0);
+        assertEquals(CONFIG.toJson(), READ.toJson());
+        assertEquals(Integer.class, READ.get("count").getClass());
+        assertEquals(Long.class, READ.get("mass").getClass());
+    }
+
+    @Test
+    void roundTripsBundledDataThroughJson() throws Exception {
+        final List<Document> BUNDLED = SnapshotConverter.readJson(Arrays.asList("src/main/resources/data"));
+        final Path SNAPSHOT = directory.resolve("catalog.snapshot");
+        final Path JSON = directory.resolve("catalog.json");
+        CatalogSnapshot.write(BUNDLED, SNAPSHOT);
+        SnapshotConverter.writeJson(SnapshotConverter.readSnapshot(SNAPSHOT), JSON);
+
+        // The configs survive the round trip, though they come back grouped by mod and type in a single file
+        final List<Document> READ = SnapshotConverter.readJson(Arrays.asList(JSON.toString()));
+        assertEquals(BUNDLED.size(), READ.size());
+        assertEquals(sortedJson(BUNDLED), sortedJson(READ));
+    }
+
+    private static List<String> sortedJson(List<Document> configs) {
+        return configs.stream().map(Document::toJson).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void indexesConfigsByModAndType() throws Exception {
+        final Path SNAPSHOT = directory.resolve("catalog.snapshot");
+        CatalogSnapshot.write(Arrays.asList(
+            config("c", "ace", "Magazines"), config("b", "vanilla", "Primaries"), config("a", "ace", "Magazines"), config("d", "ace", "Vests")
+        ), SNAPSHOT);
+
+        CatalogSnapshot snapshot = CatalogSnapshot.open(SNAPSHOT);
+        assertEquals(4, snapshot.size());
+        assertEquals(Set.of("ace", "vanilla"), snapshot.getMods());
+        assertEquals(Set.of("Magazines", "Vests"), snapshot.getTypes("ace"));
+        final List<Document> MAGAZINES = snapshot.read("ace", "Magazines");
+        assertEquals("a", MAGAZINES.get(0).get("class"));
+        assertEquals("c", MAGAZINES.get(1).get("class"));
+        assertEquals(3, snapshot.read("ace").size());
+        assertTrue(snapshot.read("rhs").isEmpty());
+        assertTrue(snapshot.read("vanilla", "Vests").isEmpty());
+    }
+
+    @Test
+    void storesRepeatedStringsOnce() throws Exception {
+        final Path ONE = directory.resolve("one.snapshot");
+        final Path TWO = directory.resolve("two.snapshot");
+        CatalogSnapshot.write(Arrays.asList(config("a", "ace", "Magazines")), ONE);
+        CatalogSnapshot.write(Arrays.asList(config("a", "ace", "Magazines"), config("b", "ace", "Magazines")), TWO);
+
+        // The second config only adds its record, its class name and the file name of its image
+        assertTrue(Files.size(TWO) - Files.size(ONE) < 100);
+    }
+
+    @Test
+    void rejectsOtherFiles() throws Exception {
+        final Path FILE = Files.writeString(directory.resolve("catalog.json"), "[{\"class\": \"a\"}]");
+        assertThrows(IOException.class, () -> CatalogSnapshot.open(FILE));
+    }
+}
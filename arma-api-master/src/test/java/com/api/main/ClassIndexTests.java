@@ -0,0 +1,56 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class ClassIndexTests {
+
+    private final CatalogCache cache = new CatalogCache(2, 16);
+
+    ClassIndexTests() {
+        cache.load(Map.of(
+            "vanilla", List.of(
+                new Document("class", "arifle_MX_F").append("mod", "vanilla").append("type", "Primaries"),
+                new Document("class", "30Rnd_65x39_caseless_mag").append("mod", "vanilla").append("type", "Magazines")
+            ),
+            "ace", List.of(
+                new Document("class", "arifle_MX_F").append("mod", "ace").append("type", "Primaries")
+            )
+        ));
+    }
+
+    @Test
+    void findsClassesIgnoringCase() {
+        final ClassIndex INDEX = cache.getClassIndex();
+        assertEquals(2, INDEX.size());
+        assertEquals(2, INDEX.find("", "arifle_mx_f").size());
+        assertEquals(1, INDEX.find("ace", "ARIFLE_MX_F").size());
+        assertTrue(new String(INDEX.find("ace", "arifle_MX_F").get(0), StandardCharsets.UTF_8).contains("\"ace\""));
+        assertTrue(INDEX.find("ace", "30Rnd_65x39_caseless_mag").isEmpty());
+        assertTrue(INDEX.find("", "rhs_weap_ak74").isEmpty());
+    }
+
+    @Test
+    void serializesBatchBody() {
+        final ClassIndex INDEX = cache.getClassIndex();
+        final Map<String, List<byte[]>> FOUND = new LinkedHashMap<String, List<byte[]>>();
+        FOUND.put("vanilla/30Rnd_65x39_caseless_mag", INDEX.find("vanilla", "30Rnd_65x39_caseless_mag"));
+        FOUND.put("arifle_MX_F", INDEX.find("", "arifle_MX_F"));
+
+        final JsonBody BODY = JsonBody.ofBatch(FOUND, List.of("rhs_weap_ak74", "quote\"d"));
+        final Document PARSED = Document.parse(new String(BODY.getBytes(), StandardCharsets.UTF_8));
+        assertEquals(3, BODY.getCount());
+        assertEquals(List.of("vanilla/30Rnd_65x39_caseless_mag", "arifle_MX_F"), List.copyOf(PARSED.get("configs", Document.class).keySet()));
+        assertEquals(2, PARSED.get("configs", Document.class).getList("arifle_MX_F", Document.class).size());
+        assertEquals(List.of("rhs_weap_ak74", "quote\"d"), PARSED.getList("missing", String.class));
+        assertEquals("{\"configs\": {}, \"missing\": []}", new String(JsonBody.ofBatch(Map.of(), List.of()).getBytes(), StandardCharsets.UTF_8));
+    }
+}
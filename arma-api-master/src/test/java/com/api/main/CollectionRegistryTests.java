@@ -0,0 +1,125 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class CollectionRegistryTests {
+
+    private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+    private final CollectionRegistry registry = new CollectionRegistry(store);
+
+    private void load(long version, String className) {
+        store.insert(CollectionRegistry.prefixOf(version) + "ace", List.of(new Document("class", className).append("mod", "ace")));
+        store.upsert(CollectionRegistry.HASHES_COLLECTION, new Document("_id", version + ":weapons.json").append("version", version).append("file", "weapons.json"));
+    }
+
+    private String liveClass() throws Exception {
+        return registry.readers().get("ace").call().get(0).getString("class");
+    }
+
+    @Test
+    void namesVersionedCollections() {
+        assertEquals("data.", CollectionRegistry.prefixOf(0));
+        assertEquals("data.v12.", CollectionRegistry.prefixOf(12));
+        assertEquals(12, CollectionRegistry.versionOf(CollectionRegistry.prefixOf(12) + "ace"));
+    }
+
+    @Test
+    void treatsUnversionedCollectionsAsVersionZero() {
+        assertEquals(0, CollectionRegistry.versionOf("data.ace"));
+        assertEquals(0, CollectionRegistry.versionOf("data.vanilla"));
+        assertEquals(-1, CollectionRegistry.versionOf("meta"));
+        assertEquals(-1, CollectionRegistry.versionOf("system.views"));
+    }
+
+    @Test
+    void servesUnversionedCollectionsUntilAVersionIsPublished() throws Exception {
+        load(0, "original");
+        registry.refresh();
+        assertEquals(0, registry.getVersion());
+        assertEquals(Map.of("ace", "data.ace"), registry.getCollections());
+        assertEquals("original", liveClass());
+        assertThrows(Exception.class, registry::rollback);
+    }
+
+    @Test
+    void publishesAndRollsBackVersions() throws Exception {
+        load(0, "original");
+        registry.refresh();
+
+        // The next version is staged beside the live one, which keeps being served until the pointer flips
+        final long NEXT = registry.nextVersion();
+        assertEquals(1, NEXT);
+        load(NEXT, "updated");
+        registry.refresh();
+        assertEquals("original", liveClass());
+
+        registry.publish(NEXT);
+        assertEquals(1, registry.getVersion());
+        assertEquals(0, registry.getPreviousVersion());
+        assertEquals(Map.of("ace", "data.v1.ace"), registry.getCollections());
+        assertEquals("updated", liveClass());
+
+        registry.rollback();
+        assertEquals(0, registry.getVersion());
+        assertEquals(1, registry.getPreviousVersion());
+        assertEquals("original", liveClass());
+
+        // Rolling back again returns to the version that was rolled back from
+        registry.rollback();
+        assertEquals(1, registry.getVersion());
+        assertEquals("updated", liveClass());
+    }
+
+    @Test
+    void neverStagesIntoAVersionKeptForRollback() throws Exception {
+        load(0, "original");
+        registry.refresh();
+        load(1, "first");
+        registry.publish(registry.nextVersion());
+        assertEquals(2, registry.nextVersion());
+
+        load(2, "second");
+        registry.publish(2);
+        registry.rollback();
+        assertEquals(1, registry.getVersion());
+        assertEquals(2, registry.getPreviousVersion());
+        assertEquals(3, registry.nextVersion());
+    }
+
+    @Test
+    void dropsRetiredVersionsOnly() throws Exception {
+        load(0, "original");
+        registry.refresh();
+        for (long version = 1; version <= 3; version++) {
+            load(version, "v" + version);
+            registry.publish(version);
+        }
+        registry.dropRetired();
+
+        assertEquals(List.of("data.v2.ace", "data.v3.ace", CollectionRegistry.META_COLLECTION, CollectionRegistry.HASHES_COLLECTION), store.listCollectionNames());
+        assertEquals(List.of("2:weapons.json", "3:weapons.json"), store.find(CollectionRegistry.HASHES_COLLECTION).stream().map(hashes -> hashes.getString("_id")).sorted().collect(Collectors.toList()));
+        assertEquals("v3", liveClass());
+
+        registry.rollback();
+        assertEquals("v2", liveClass());
+    }
+
+    @Test
+    void refusesToRollBackToADroppedVersion() {
+        load(0, "original");
+        registry.refresh();
+        load(1, "updated");
+        registry.publish(1);
+        store.drop("data.ace");
+        assertThrows(Exception.class, registry::rollback);
+        assertEquals(1, registry.getVersion());
+    }
+}
@@ -0,0 +1,72 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class ConfigDiffTests {
+
+    private static Document config(String mod, String className, int weight) {
+        return new Document("class", className).append("mod", mod).append("type", "Primaries").append("weight", weight);
+    }
+
+    private static List<Document> concat(List<Document> first, List<Document> second) {
+        final List<Document> BOTH = new ArrayList<Document>(first);
+        BOTH.addAll(second);
+        return BOTH;
+    }
+
+    @Test
+    void reportsEveryConfigAsAddedWithoutPreviousHashes() {
+        ConfigDiff diff = new ConfigDiff(Collections.emptyList(), Arrays.asList(config("ace", "a", 1), config("rhs", "b", 2)));
+        assertEquals(2, diff.getAdded());
+        assertEquals(1, diff.getInserts().get("ace").size());
+        assertEquals(1, diff.getInserts().get("rhs").size());
+        assertEquals(Arrays.asList("a"), diff.getDeletes().get("ace"));
+    }
+
+    @Test
+    void writesOnlyChangedConfigs() {
+        final List<Document> PREVIOUS = ConfigDiff.hashesOf(Arrays.asList(config("ace", "a", 1), config("ace", "b", 2), config("rhs", "c", 3)));
+        final List<Document> CURRENT = Arrays.asList(config("ace", "a", 1), config("ace", "b", 5), config("ace", "d", 4));
+
+        ConfigDiff diff = new ConfigDiff(PREVIOUS, CURRENT);
+        assertEquals("1 added, 1 changed, 1 removed, 1 unchanged", diff.toString());
+        assertEquals(2, diff.getInserts().get("ace").size());
+        assertEquals(Arrays.asList("b", "d"), diff.getDeletes().get("ace"));
+        assertEquals(Arrays.asList("c"), diff.getDeletes().get("rhs"));
+
+        assertTrue(new ConfigDiff(ConfigDiff.hashesOf(CURRENT), CURRENT).isEmpty());
+    }
+
+    @Test
+    void keepsClassesThatMoveBetweenDataFiles() {
+        // The class is in the first file at the last update and in the second one now
+        final List<Document> FIRST_FILE = Arrays.asList(config("ace", "a", 1), config("ace", "moved", 2));
+        final List<Document> SECOND_FILE = Arrays.asList(config("ace", "b", 3));
+        final List<Document> PREVIOUS = concat(ConfigDiff.hashesOf(FIRST_FILE), ConfigDiff.hashesOf(SECOND_FILE));
+
+        ConfigDiff diff = new ConfigDiff(PREVIOUS, concat(Arrays.asList(config("ace", "a", 1)), Arrays.asList(config("ace", "b", 3), config("ace", "moved", 2))));
+        assertTrue(diff.isEmpty(), diff.toString());
+        assertTrue(diff.getDeletes().isEmpty());
+    }
+
+    @Test
+    void rewritesEveryCopyOfADuplicatedClass() {
+        final List<Document> PREVIOUS = ConfigDiff.hashesOf(Arrays.asList(config("ace", "a", 1), config("ace", "a", 2)));
+
+        assertTrue(new ConfigDiff(PREVIOUS, Arrays.asList(config("ace", "a", 2), config("ace", "a", 1))).isEmpty());
+
+        ConfigDiff diff = new ConfigDiff(PREVIOUS, Arrays.asList(config("ace", "a", 1), config("ace", "a", 3)));
+        assertEquals("0 added, 1 changed, 0 removed, 0 unchanged", diff.toString());
+        assertEquals(Arrays.asList("a"), diff.getDeletes().get("ace"));
+        assertEquals(2, diff.getInserts().get("ace").size());
+    }
+}
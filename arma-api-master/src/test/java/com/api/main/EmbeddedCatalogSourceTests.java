@@ -0,0 +1,51 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class EmbeddedCatalogSourceTests {
+
+    private final FanOutExecutor fanOut = new FanOutExecutor(2);
+    private final IngestionPipeline pipeline = new IngestionPipeline(fanOut, 1000, 5000);
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void loadsBundledDataFilesOnce() throws Exception {
+        EmbeddedCatalogSource source = new EmbeddedCatalogSource(pipeline);
+        assertTrue(source.readers().isEmpty());
+
+        source.refresh();
+        final Map<String, Callable<List<Document>>> READERS = source.readers();
+        assertTrue(READERS.containsKey("vanilla"));
+        final List<Document> VANILLA = READERS.get("vanilla").call();
+        assertFalse(VANILLA.isEmpty());
+        VANILLA.forEach(config -> assertEquals("vanilla", config.get("mod")));
+
+        source.refresh();
+        assertSame(VANILLA, source.readers().get("vanilla").call());
+
+        CatalogCache cache = new CatalogCache(2, 16);
+        cache.reload(source, fanOut, 5000);
+        assertEquals(VANILLA.size(), cache.get("vanilla", "").size());
+    }
+
+    @Test
+    void failsWithoutDataFiles() {
+        assertThrows(Exception.class, () -> new EmbeddedCatalogSource(pipeline, "classpath*:missing/*.json").refresh());
+    }
+}
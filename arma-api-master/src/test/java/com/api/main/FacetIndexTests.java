@@ -0,0 +1,99 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class FacetIndexTests {
+
+    private final CatalogCache cache = new CatalogCache(2, 16);
+
+    FacetIndexTests() {
+        cache.load(Map.of(
+            "vanilla", List.of(
+                new Document("class", "30Rnd_556x45_Stanag").append("mod", "vanilla").append("type", "Magazines").append("subtype", "Rifle").append("ammo", "B_556x45_Ball").append("count", 30).append("weight", 8),
+                new Document("class", "30Rnd_65x39_caseless_mag").append("mod", "vanilla").append("type", "Magazines").append("subtype", "Rifle").append("ammo", "B_65x39_Caseless").append("count", 30).append("weight", 12.5),
+                new Document("class", "16Rnd_9x21_Mag").append("mod", "vanilla").append("type", "Magazines").append("subtype", "Handgun").append("ammo", "B_9x21_Ball").append("count", 16).append("weight", 4)
+            ),
+            "ace", List.of(
+                new Document("class", "ACE_30Rnd_556x45_Stanag_Tracer").append("mod", "ace").append("type", "Magazines").append("subtype", "Rifle").append("ammo", "B_556x45_Ball").append("count", 30.0).append("weight", 9),
+                new Document("class", "ACE_Banana").append("mod", "ace").append("type", "Tools").append("subtype", "Misc").append("weight", 1)
+            )
+        ));
+    }
+
+    private List<String> query(String... filters) throws Exception {
+        final List<FacetIndex.Filter> PARSED = new ArrayList<FacetIndex.Filter>();
+        for (String filter : filters) {
+            PARSED.add(FacetIndex.Filter.parse(filter));
+        }
+        return cache.query(PARSED).getSlice().getConfigs().stream().map(CatalogSlice::classOf).collect(Collectors.toList());
+    }
+
+    @Test
+    void filtersByEqualityAndRange() throws Exception {
+        assertEquals(5, query().size());
+        assertEquals(List.of("30Rnd_556x45_Stanag", "ACE_30Rnd_556x45_Stanag_Tracer"), query("ammo:B_556x45_Ball"));
+        assertEquals(List.of("16Rnd_9x21_Mag", "ACE_Banana"), query("subtype:Handgun|Misc"));
+        assertEquals(3, query("count:30").size());
+        assertEquals(3, query("count:30.0").size());
+        assertEquals(List.of("30Rnd_65x39_caseless_mag", "ACE_30Rnd_556x45_Stanag_Tracer"), query("type:Magazines", "weight>8.5"));
+        assertEquals(List.of("16Rnd_9x21_Mag", "ACE_Banana"), query("weight<=4"));
+        assertTrue(query("missing:value").isEmpty());
+        assertTrue(query("mod:ace", "mod:vanilla").isEmpty());
+        assertSame(cache.query(List.of(FacetIndex.Filter.parse("mod:ace"), FacetIndex.Filter.parse("count>=16"))), cache.query(List.of(FacetIndex.Filter.parse("count>=16"), FacetIndex.Filter.parse("mod:ace"))));
+
+        assertThrows(Exception.class, () -> FacetIndex.Filter.parse("count>=many"));
+        assertThrows(Exception.class, () -> FacetIndex.Filter.parse("type"));
+        assertThrows(Exception.class, () -> FacetIndex.Filter.parse("type:"));
+    }
+
+    @Test
+    void countsFacetsOfTheMatchingConfigs() throws Exception {
+        final FacetIndex.Result RESULT = cache.query(List.of(FacetIndex.Filter.parse("type:Magazines")));
+        final Map<String, Map<String, Integer>> FACETS = RESULT.facets(List.of("mod", "subtype", "count", "missing"));
+        assertEquals(List.of("vanilla", "ace"), List.copyOf(FACETS.get("mod").keySet()));
+        assertEquals(Map.of("vanilla", 3, "ace", 1), FACETS.get("mod"));
+        assertEquals(Map.of("Rifle", 3, "Handgun", 1), FACETS.get("subtype"));
+        assertEquals(Map.of("30", 3, "16", 1), FACETS.get("count"));
+        assertTrue(FACETS.get("missing").isEmpty());
+
+        final JsonBody BODY = cache.facets(RESULT, RESULT.getSlice(), List.of("mod"), 0, 0, null);
+        assertSame(BODY, cache.facets(RESULT, RESULT.getSlice(), List.of("mod"), 0, 0, null));
+        assertEquals("{\"total\": 4, \"next\": null, \"facets\": {\"mod\": {\"vanilla\": 3, \"ace\": 1}}, \"configs\": []}", new String(BODY.getBytes(), StandardCharsets.UTF_8));
+
+        final Document PAGE = Document.parse(new String(cache.facets(RESULT, RESULT.getSlice(), List.of(), 0, 2, "").getBytes(), StandardCharsets.UTF_8));
+        assertEquals("30Rnd_556x45_Stanag", PAGE.getString("next"));
+        assertEquals(2, PAGE.getList("configs", Document.class).size());
+    }
+
+    @Test
+    void matchesWithAndWithoutPostingsOnBundledData() throws Exception {
+        final FanOutExecutor FAN_OUT = new FanOutExecutor(2);
+        final CatalogCache BUNDLED = new CatalogCache(2, 16);
+        try {
+            final EmbeddedCatalogSource SOURCE = new EmbeddedCatalogSource(new IngestionPipeline(FAN_OUT, 1000, 5000));
+            SOURCE.refresh();
+            BUNDLED.reload(SOURCE, FAN_OUT, 5000);
+        } finally {
+            FAN_OUT.shutdown();
+        }
+        final List<Document> ALL = BUNDLED.query(List.of()).getSlice().getConfigs();
+
+        // Types have postings, class names are unique so their column is scanned
+        final long MAGAZINES = ALL.stream().filter(config -> "Magazines".equals(config.get("type"))).count();
+        assertEquals(MAGAZINES, BUNDLED.query(List.of(FacetIndex.Filter.parse("type:Magazines"))).getSlice().size());
+        assertEquals(List.of("30Rnd_65x39_caseless_mag"), BUNDLED.query(List.of(FacetIndex.Filter.parse("class:30Rnd_65x39_caseless_mag"))).getSlice().getConfigs().stream().map(CatalogSlice::classOf).collect(Collectors.toList()));
+        assertEquals(2, BUNDLED.query(List.of(FacetIndex.Filter.parse("class:30Rnd_65x39_caseless_mag|30Rnd_556x45_Stanag"), FacetIndex.Filter.parse("type:Magazines"))).getSlice().size());
+    }
+}
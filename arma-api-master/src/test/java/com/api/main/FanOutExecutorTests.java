@@ -0,0 +1,59 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FanOutExecutorTests {
+
+    private final FanOutExecutor fanOut = new FanOutExecutor(4);
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void runsTasksConcurrently() {
+        final Map<String, Callable<String>> TASKS = new LinkedHashMap<String, Callable<String>>();
+        for (String mod : new String[] {"vanilla", "ace", "rhs", "3cb"}) {
+            TASKS.put(mod, () -> {
+                Thread.sleep(200);
+                return mod;
+            });
+        }
+
+        final long START = System.currentTimeMillis();
+        FanOutExecutor.Result<String> result = fanOut.run(TASKS, 5000);
+        assertTrue(System.currentTimeMillis() - START < 700);
+        assertFalse(result.isPartial());
+        assertEquals("ace", result.getCompleted().get("ace"));
+        assertEquals(4, result.getCompleted().size());
+    }
+
+    @Test
+    void reportsFailedAndTimedOutTasks() {
+        final Map<String, Callable<String>> TASKS = new LinkedHashMap<String, Callable<String>>();
+        TASKS.put("vanilla", () -> "vanilla");
+        TASKS.put("ace", () -> {
+            throw new IllegalStateException("ace is down");
+        });
+        TASKS.put("rhs", () -> {
+            Thread.sleep(10000);
+            return "rhs";
+        });
+
+        FanOutExecutor.Result<String> result = fanOut.run(TASKS, 200);
+        assertTrue(result.isPartial());
+        assertEquals(Map.of("vanilla", "vanilla"), result.getCompleted());
+        assertTrue(result.getFailed().get("ace").contains("ace is down"));
+        assertTrue(result.getFailed().get("rhs").contains("timed out"));
+    }
+}
@@ -0,0 +1,97 @@
+package com.api.main;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.bson.Document;
+
+/**
+ * A {@link CollectionStore} holding its collections in memory, for the registry and updater tests.
+ */
+class InMemoryCollectionStore implements CollectionStore {
+    private final Map<String, List<Document>> collections = new TreeMap<String, List<Document>>();
+    private final Set<String> indexes = new HashSet<String>();
+
+    @Override
+    public synchronized List<String> listCollectionNames() {
+        return new ArrayList<String>(collections.keySet());
+    }
+
+    @Override
+    public synchronized List<Document> find(String collectionName) {
+        return new ArrayList<Document>(collections.getOrDefault(collectionName, List.of()));
+    }
+
+    @Override
+    public synchronized List<Document> find(String collectionName, String field, Object value) {
+        final List<Document> FOUND = new ArrayList<Document>();
+        for (Document document : collections.getOrDefault(collectionName, List.of())) {
+            if (value.equals(document.get(field))) {
+                FOUND.add(document);
+            }
+        }
+        return FOUND;
+    }
+
+    @Override
+    public synchronized void insert(String collectionName, List<Document> documents) {
+        collection(collectionName).addAll(documents);
+    }
+
+    @Override
+    public synchronized void copy(String from, String to) {
+        drop(to);
+        collection(to).addAll(find(from));
+    }
+
+    @Override
+    public synchronized void replaceClasses(String collectionName, List<String> classNames, List<Document> configs) {
+        collection(collectionName).removeIf(config -> classNames.contains(config.getString("class")));
+        collection(collectionName).addAll(configs);
+    }
+
+    @Override
+    public synchronized void createIndex(String collectionName, String field) {
+        collection(collectionName);
+        indexes.add(collectionName + "." + field);
+    }
+
+    @Override
+    public synchronized void drop(String collectionName) {
+        collections.remove(collectionName);
+        indexes.removeIf(index -> index.startsWith(collectionName + "."));
+    }
+
+    @Override
+    public synchronized void upsert(String collectionName, Document document) {
+        delete(collectionName, document.get("_id"));
+        collection(collectionName).add(document);
+    }
+
+    @Override
+    public synchronized void delete(String collectionName, Object id) {
+        collection(collectionName).removeIf(document -> id.equals(document.get("_id")));
+    }
+
+    @Override
+    public synchronized void deleteUnless(String collectionName, String field, List<?> values) {
+        collection(collectionName).removeIf(document -> !values.contains(document.get(field)));
+    }
+
+    /**
+     * @param collectionName A collection
+     * @param field A field
+     * @return Whether an index was created on the field of the collection
+     */
+    synchronized boolean isIndexed(String collectionName, String field) {
+        return indexes.contains(collectionName + "." + field);
+    }
+
+    private List<Document> collection(String collectionName) {
+        return collections.computeIfAbsent(collectionName, key -> new ArrayList<Document>());
+    }
+}
@@ -0,0 +1,79 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.DigestUtils;
+
+class IngestionPipelineTests {
+
+    private final FanOutExecutor fanOut = new FanOutExecutor(2);
+    private final Map<String, List<List<Document>>> batches = new ConcurrentHashMap<String, List<List<Document>>>();
+
+    @TempDir
+    Path directory;
+
+    @AfterEach
+    void shutdown() {
+        fanOut.shutdown();
+    }
+
+    private void collect(String mod, List<Document> batch) {
+        batches.computeIfAbsent(mod, key -> Collections.synchronizedList(new ArrayList<List<Document>>())).add(batch);
+    }
+
+    @Test
+    void batchesConfigsPerMod() throws Exception {
+        final Path FILE = Files.writeString(directory.resolve("weapons.json"), "["
+            + "{\"class\":\"a\",\"mod\":\"ace\",\"type\":\"Primaries\",\"weight\":5},"
+            + "{\"class\":\"b\",\"mod\":\"ace\",\"type\":\"Primaries\"},"
+            + "{\"class\":\"c\",\"mod\":\"ace\",\"type\":\"Primaries\"},"
+            + "{\"class\":\"d\",\"mod\":\"rhs\",\"type\":\"Primaries\"},"
+            + "{\"class\":\"e\",\"mod\":\"rhs\",\"type\":\"\"},"
+            + "{\"class\":\"f\",\"mod\":\"rhs\"}"
+            + "]");
+
+        IngestionPipeline.FileReport report = new IngestionPipeline(fanOut, 2, 5000).ingest(FILE, this::collect);
+        assertEquals(4, report.getWritten());
+        assertEquals(2, report.getSkipped());
+        assertEquals(2, batches.get("ace").size());
+        assertEquals(Arrays.asList("a", "b"), classes(batches.get("ace").get(0)));
+        assertEquals(Arrays.asList("c"), classes(batches.get("ace").get(1)));
+        assertEquals(Arrays.asList("d"), classes(batches.get("rhs").get(0)));
+        assertEquals(5, batches.get("ace").get(0).get(0).get("weight"));
+
+        // Hashes are taken while streaming, so the updater never has to read the file again
+        assertEquals(DigestUtils.md5DigestAsHex(Files.readAllBytes(FILE)), report.getHash());
+        assertEquals(4, report.getConfigHashes().size());
+        assertEquals(ConfigDiff.hashOf(batches.get("rhs").get(0).get(0)), report.getConfigHashes().get(3).getString("hash"));
+    }
+
+    @Test
+    void reportsFilesThatFail() throws Exception {
+        final Path VALID = Files.writeString(directory.resolve("valid.json"), "[{\"class\":\"a\",\"mod\":\"ace\",\"type\":\"Primaries\"}]");
+        final Path INVALID = Files.writeString(directory.resolve("invalid.json"), "{\"class\":\"a\"}");
+
+        FanOutExecutor.Result<IngestionPipeline.FileReport> result = new IngestionPipeline(fanOut, 100, 5000).ingest(Arrays.asList(VALID, INVALID), this::collect);
+        assertEquals(1, result.getCompleted().get(VALID.toString()).getWritten());
+        assertTrue(result.getFailed().containsKey(INVALID.toString()));
+    }
+
+    private static List<String> classes(List<Document> batch) {
+        final List<String> CLASSES = new ArrayList<String>();
+        batch.forEach(config -> CLASSES.add(CatalogSlice.classOf(config)));
+        return CLASSES;
+    }
+}
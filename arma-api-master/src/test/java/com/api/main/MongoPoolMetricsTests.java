@@ -0,0 +1,45 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.mongodb.ServerAddress;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionId;
+import com.mongodb.connection.ConnectionPoolSettings;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.ConnectionAddedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolClosedEvent;
+import com.mongodb.event.ConnectionPoolOpenedEvent;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class MongoPoolMetricsTests {
+
+    @Test
+    void gaugesPoolUsage() {
+        final SimpleMeterRegistry REGISTRY = new SimpleMeterRegistry();
+        final MongoPoolMetrics METRICS = new MongoPoolMetrics(REGISTRY);
+        final ServerId SERVER = new ServerId(new ClusterId("cluster"), new ServerAddress("localhost", 27017));
+        final ConnectionId FIRST = new ConnectionId(SERVER, 1, null);
+        final ConnectionId SECOND = new ConnectionId(SERVER, 2, null);
+
+        METRICS.connectionPoolOpened(new ConnectionPoolOpenedEvent(SERVER, ConnectionPoolSettings.builder().build()));
+        METRICS.connectionAdded(new ConnectionAddedEvent(FIRST));
+        METRICS.connectionAdded(new ConnectionAddedEvent(SECOND));
+        METRICS.connectionCheckedOut(new ConnectionCheckedOutEvent(FIRST));
+        METRICS.connectionCheckedOut(new ConnectionCheckedOutEvent(SECOND));
+        METRICS.connectionCheckedIn(new ConnectionCheckedInEvent(FIRST));
+
+        assertEquals(2, REGISTRY.get("mongodb.driver.pool.size").tag("server.address", "localhost:27017").gauge().value());
+        assertEquals(1, REGISTRY.get("mongodb.driver.pool.checkedout").gauge().value());
+        assertNull(REGISTRY.find("mongodb.driver.pool.waitqueuesize").gauge());
+
+        METRICS.connectionPoolClosed(new ConnectionPoolClosedEvent(SERVER));
+        assertNull(REGISTRY.find("mongodb.driver.pool.size").gauge());
+    }
+}
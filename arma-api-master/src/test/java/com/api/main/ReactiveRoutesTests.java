@@ -0,0 +1,164 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+class ReactiveRoutesTests {
+
+    private final ReactiveRoutes routes = new ReactiveRoutes();
+    private CatalogCache catalog;
+
+    @BeforeEach
+    void setup() {
+        catalog = new CatalogCache(16, 16);
+        catalog.load(Map.of(
+            "vanilla", List.of(
+                new Document("class", "30Rnd_556x45_Stanag").append("name", "5.56 mm 30rnd Mag").append("type", "Magazines").append("weight", 8),
+                new Document("class", "B_AssaultPack_khk").append("name", "Assault Pack (Khaki)").append("type", "Backpacks").append("weight", 20)
+            ),
+            "ace", List.of(
+                new Document("class", "ACE_Banana").append("name", "Banana").append("type", "Tools").append("weight", 1)
+            )
+        ));
+        serve(catalog, null);
+    }
+
+    @AfterEach
+    void reset() {
+        Executer.serve(null, null, null, null);
+    }
+
+    private static void serve(CatalogCache catalog, Admission admission) {
+        final Config CONFIG = new Config();
+        ReflectionTestUtils.setField(CONFIG, "compressionMinBytes", 1024);
+        ReflectionTestUtils.setField(CONFIG, "batchMaxSize", 1000);
+        Executer.serve(CONFIG, new RequestValidator(List.of("vanilla", "ace"), Config.getTypes(), Config.getSpecialChars()), catalog, admission);
+    }
+
+    private WebTestClient client() {
+        return WebTestClient.bindToRouterFunction(routes.catalogRoutes()).webFilter(routes.admissionFilter(ServerCodecConfigurer.create())).build();
+    }
+
+    @Test
+    void pagesClasses() {
+        final List<Map> FIRST = client().get().uri("/classes?page=0&size=2").exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectHeader().valueEquals("X-Total-Count", "3")
+            .expectBodyList(Map.class).returnResult().getResponseBody();
+        final List<Map> SECOND = client().get().uri("/classes?page=1&size=2").exchange()
+            .expectStatus().isOk()
+            .expectBodyList(Map.class).returnResult().getResponseBody();
+        assertEquals(2, FIRST.size());
+        assertEquals(1, SECOND.size());
+        assertTrue(FIRST.stream().noneMatch(config -> config.get("class").equals(SECOND.get(0).get("class"))));
+
+        client().get().uri("/classes/vanilla?type=Backpacks").exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.length()").isEqualTo(1).jsonPath("$[0].class").isEqualTo("B_AssaultPack_khk");
+    }
+
+    @Test
+    void answersMatchingETagsWithNotModified() {
+        final String ETAG = client().get().uri("/classes?size=2").exchange()
+            .expectStatus().isOk()
+            .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(ETAG);
+
+        for (String ifNoneMatch : List.of(ETAG, "W/" + ETAG, "\"stale\", " + ETAG, "\"stale\",W/" + ETAG, "*")) {
+            client().get().uri("/classes?size=2").header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch).exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETAG)
+                .expectBody().isEmpty();
+        }
+        client().get().uri("/classes?size=2").header(HttpHeaders.IF_NONE_MATCH, "\"stale\", W/\"other\"").exchange()
+            .expectStatus().isOk();
+        client().get().uri("/classes?size=1").header(HttpHeaders.IF_NONE_MATCH, ETAG).exchange()
+            .expectStatus().isOk();
+    }
+
+    @Test
+    void streamsNewlineDelimitedJson() {
+        final String STREAMED = client().get().uri("/classes?stream=true").exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("application/x-ndjson")
+            .expectHeader().valueEquals("X-Total-Count", "3")
+            .expectBody(String.class).returnResult().getResponseBody();
+        final String[] LINES = STREAMED.split("\n");
+        assertEquals(3, LINES.length);
+        for (String line : LINES) {
+            assertTrue(Document.parse(line).containsKey("class"), line);
+        }
+
+        // Accepting newline delimited JSON streams as well, and pages apply to the stream
+        final String PAGED = client().get().uri("/classes?size=2").accept(MediaType.parseMediaType("application/x-ndjson")).exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("application/x-ndjson")
+            .expectBody(String.class).returnResult().getResponseBody();
+        assertEquals(2, PAGED.split("\n").length);
+    }
+
+    @Test
+    void turnsClientsOverTheirRateAwayWithRetryAfter() {
+        serve(catalog, new Admission(1, 1, -1));
+        client().get().uri("/classes?size=1").exchange().expectStatus().isOk();
+        client().get().uri("/classes?size=1").exchange()
+            .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+            .expectHeader().exists(HttpHeaders.RETRY_AFTER)
+            .expectBody().jsonPath("$.status").isEqualTo(429).jsonPath("$.error").isNotEmpty();
+    }
+
+    @Test
+    void turnsRequestsAwayWithRetryAfterWhileTheCatalogLoads() {
+        serve(new CatalogCache(16, 16), null);
+        client().get().uri("/classes").exchange()
+            .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+            .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "5")
+            .expectBody().jsonPath("$.status").isEqualTo(503).jsonPath("$.error").isNotEmpty();
+    }
+
+    @Test
+    void shedsFullScansWithRetryAfter() {
+        // No full response may be written at once, paged ones still are
+        serve(catalog, new Admission(-1, 1, 0));
+        client().get().uri("/classes").exchange()
+            .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE)
+            .expectHeader().exists(HttpHeaders.RETRY_AFTER)
+            .expectBody().jsonPath("$.status").isEqualTo(503);
+        client().get().uri("/classes?size=2").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void rejectsInvalidParameters() {
+        // Malformed numbers get an empty 400 like the servlet routes' type mismatches
+        client().get().uri("/classes?page=one").exchange()
+            .expectStatus().isBadRequest()
+            .expectBody().isEmpty();
+        client().post().uri("/classes/batch").contentType(MediaType.APPLICATION_JSON).bodyValue("[").exchange()
+            .expectStatus().isBadRequest();
+
+        // Values that parse but aren't valid get the usual error body
+        client().get().uri("/classes/unknown").exchange()
+            .expectStatus().isNotFound()
+            .expectHeader().contentType(MediaType.APPLICATION_JSON)
+            .expectBody().jsonPath("$.status").isEqualTo(404).jsonPath("$.error").value(error -> assertTrue(error.toString().contains("unknown"), error.toString()));
+        client().get().uri("/classes?page=-1&size=2").exchange()
+            .expectStatus().isNotFound()
+            .expectBody().jsonPath("$.error").isEqualTo("Invalid pagination parameters -1 (page) and 2 (size)");
+    }
+}
@@ -0,0 +1,39 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class RequestValidatorTests {
+
+    private final RequestValidator validator = new RequestValidator(List.of("vanilla", "ace"), Config.getTypes(), Config.getSpecialChars());
+
+    @Test
+    void stripsSpecialCharacters() {
+        final String CLEAN = "arifle_MX_F";
+        assertSame(CLEAN, validator.escape(CLEAN));
+        assertEquals("arifle_MX_F", validator.escape("{$arifle_MX_F'}"));
+        assertEquals("ab", validator.escape("a\"\\;b"));
+        assertEquals("", validator.escape("$$"));
+    }
+
+    @Test
+    void returnsCanonicalModsAndTypes() throws Exception {
+        assertSame("ace".intern(), validator.mod(new String("ace")));
+        assertSame("Vests".intern(), validator.type(new String("Ve$sts")));
+        assertEquals("", validator.mod(null));
+        assertEquals("", validator.type(""));
+    }
+
+    @Test
+    void rejectsUnknownModsAndTypes() {
+        Exception exception = assertThrows(Exception.class, () -> validator.mod("rhs"));
+        assertEquals("Unidentified mod (rhs). Available values are [vanilla, ace]", exception.getMessage());
+        assertThrows(Exception.class, () -> validator.type("Weapons"));
+        assertThrows(Exception.class, () -> validator.mod("$"));
+    }
+}
@@ -0,0 +1,82 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+class SearchIndexTests {
+
+    private static final List<Document> CONFIGS = List.of(
+        new Document("class", "30Rnd_556x45_Stanag").append("name", "5.56 mm 30rnd Reload Tracer (Yellow) Mag").append("description", "Caliber: 5.56x45 mm STANAG<br />Rounds: 30").append("count", 30).append("weight", 8),
+        new Document("class", "30Rnd_556x45_Stanag_red").append("name", "5.56 mm 30rnd Reload Tracer (Red) Mag").append("description", "Caliber: 5.56x45 mm STANAG<br />Rounds: 30").append("count", 30).append("weight", 8),
+        new Document("class", "B_AssaultPack_khk").append("name", "Assault Pack (Khaki)").append("description", "").append("weight", 20),
+        new Document("class", "ACE_Banana").append("name", "Banana").append("description", "Potassium, for a quick snack").append("weight", 1)
+    );
+
+    private final SearchIndex index = new SearchIndex(CONFIGS);
+
+    private List<String> search(String query) {
+        return Arrays.stream(index.search(query)).mapToObj(position -> CatalogSlice.classOf(CONFIGS.get(position))).collect(Collectors.toList());
+    }
+
+    @Test
+    void stripsMarkupWhenTokenizing() {
+        assertEquals(Set.of("caliber", "5", "56x45", "mm", "stanag", "rounds", "30"), SearchIndex.tokenize("Caliber: 5.56x45 mm STANAG<br />Rounds: 30", false));
+        assertTrue(SearchIndex.tokenize("ACE_Banana", true).containsAll(Set.of("ace", "banana", "acebanana")));
+    }
+
+    @Test
+    void ranksExactClassNamesFirst() {
+        assertEquals(List.of("30Rnd_556x45_Stanag", "30Rnd_556x45_Stanag_red"), search("30Rnd_556x45_Stanag"));
+        assertEquals("ACE_Banana", search("banana").get(0));
+        assertEquals(List.of("B_AssaultPack_khk", "ACE_Banana"), search("khaki banana").stream().sorted((a, b) -> b.compareTo(a)).collect(Collectors.toList()));
+    }
+
+    @Test
+    void matchesPrefixesAndTypos() {
+        assertEquals(List.of("ACE_Banana"), search("bana"));
+        assertEquals(List.of("ACE_Banana"), search("bananna"));
+        assertEquals(List.of("B_AssaultPack_khk"), search("asault"));
+        assertEquals(2, search("stnaag").size());
+        assertTrue(search("zzzz").isEmpty());
+    }
+
+    @Test
+    void matchesNumericFields() {
+        assertEquals(List.of("30Rnd_556x45_Stanag", "30Rnd_556x45_Stanag_red"), search("30"));
+        assertEquals(List.of("B_AssaultPack_khk"), search("20"));
+        assertTrue(search("999").isEmpty());
+    }
+
+    @Test
+    void keepsClassNameLookupsNarrowOnBundledData() throws Exception {
+        final FanOutExecutor FAN_OUT = new FanOutExecutor(2);
+        final List<Document> BUNDLED = new ArrayList<Document>();
+        try {
+            EmbeddedCatalogSource source = new EmbeddedCatalogSource(new IngestionPipeline(FAN_OUT, 1000, 5000));
+            source.refresh();
+            for (Callable<List<Document>> reader : source.readers().values()) {
+                BUNDLED.addAll(reader.call());
+            }
+        } finally {
+            FAN_OUT.shutdown();
+        }
+        final SearchIndex BUNDLED_INDEX = new SearchIndex(BUNDLED);
+        final List<String> MATCHES = Arrays.stream(BUNDLED_INDEX.search("30Rnd_65x39_caseless_mag")).mapToObj(position -> CatalogSlice.classOf(BUNDLED.get(position))).collect(Collectors.toList());
+
+        assertEquals("30Rnd_65x39_caseless_mag", MATCHES.get(0));
+        assertTrue(MATCHES.size() <= 20, MATCHES.toString());
+        // No rifles are bundled, so neither of these should drag in configs that only share a short part such as "f"
+        assertEquals(0, BUNDLED_INDEX.search("arifle_MX_F").length);
+        assertEquals(0, BUNDLED_INDEX.search("arifle_Missing_Class_F").length);
+    }
+}
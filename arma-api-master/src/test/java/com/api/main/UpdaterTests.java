@@ -0,0 +1,151 @@
+package com.api.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class UpdaterTests {
+
+    private final FanOutExecutor fanOut = new FanOutExecutor(2);
+    private final IngestionPipeline pipeline = new IngestionPipeline(fanOut, 2, 5000);
+    private final InMemoryCollectionStore store = new InMemoryCollectionStore();
+    private final CollectionRegistry registry = new CollectionRegistry(store);
+    private final SimpleMeterRegistry meters = new SimpleMeterRegistry();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void record() {
+        Metrics.addRegistry(meters);
+    }
+
+    @AfterEach
+    void shutdown() {
+        Metrics.removeRegistry(meters);
+        fanOut.shutdown();
+    }
+
+    private void write(String file, String... configs) throws Exception {
+        Files.writeString(directory.resolve(file), "[" + String.join(",", configs) + "]");
+    }
+
+    private static String config(String mod, String className, int weight) {
+        return String.format("{\"class\":\"%s\",\"mod\":\"%s\",\"type\":\"Primaries\",\"weight\":%d}", className, mod, weight);
+    }
+
+    private List<String> classes(String collectionName) {
+        return store.find(collectionName).stream().map(config -> config.getString("class")).sorted().collect(Collectors.toList());
+    }
+
+    @Test
+    void stagesEachUpdateInTheNextVersion() throws Exception {
+        store.insert("data.ace", List.of(new Document("class", "original").append("mod", "ace")));
+        write("weapons.json", config("ace", "a", 1), config("ace", "b", 2), config("rhs", "c", 3));
+        write("vests.json", config("rhs", "d", 4));
+
+        assertTrue(new Updater(directory).update(registry, pipeline));
+        assertEquals(1, registry.getVersion());
+        assertEquals(0, registry.getPreviousVersion());
+        assertEquals(Map.of("ace", "data.v1.ace", "rhs", "data.v1.rhs"), registry.getCollections());
+        assertEquals(List.of("a", "b"), classes("data.v1.ace"));
+        assertEquals(List.of("c", "d"), classes("data.v1.rhs"));
+        assertTrue(store.isIndexed("data.v1.ace", "class"));
+        assertTrue(store.isIndexed("data.v1.rhs", "class"));
+        assertEquals(List.of("original"), classes("data.ace"));
+        assertEquals(2, store.find(CollectionRegistry.HASHES_COLLECTION, "version", 1L).size());
+
+        // The second update replaces the first, which is kept for rollback while the unversioned collections are dropped
+        write("vests.json", config("rhs", "d", 5), config("rhs", "e", 6));
+        assertTrue(new Updater(directory).update(registry, pipeline));
+        assertEquals(2, registry.getVersion());
+        assertEquals(1, registry.getPreviousVersion());
+        assertEquals(List.of("c", "d", "e"), classes("data.v2.rhs"));
+        assertEquals(List.of("data.v1.ace", "data.v1.rhs", "data.v2.ace", "data.v2.rhs"), store.listCollectionNames().stream().filter(name -> CollectionRegistry.versionOf(name) >= 0).collect(Collectors.toList()));
+
+        registry.rollback();
+        assertEquals(List.of("c", "d"), classes(registry.getCollections().get("rhs")));
+    }
+
+    @Test
+    void leavesTheLiveVersionInPlaceWhenAFileFails() throws Exception {
+        write("weapons.json", config("ace", "a", 1));
+        assertTrue(new Updater(directory).update(registry, pipeline));
+
+        write("vests.json", config("rhs", "d", 4));
+        Files.writeString(directory.resolve("broken.json"), "[{\"class\":");
+        assertFalse(new Updater(directory).update(registry, pipeline));
+        assertEquals(1, registry.getVersion());
+        assertEquals(List.of("data.v1.ace"), store.listCollectionNames().stream().filter(name -> CollectionRegistry.versionOf(name) >= 0).collect(Collectors.toList()));
+    }
+
+    private double skipped(String reason) {
+        final Counter COUNTER = meters.find("arma.updater.skipped").tags("file", "delta", "reason", reason).counter();
+        return COUNTER == null ? 0 : COUNTER.count();
+    }
+
+    @Test
+    void stagesEachDeltaInTheNextVersion() throws Exception {
+        write("weapons.json", config("ace", "a", 1), config("ace", "b", 2), config("rhs", "c", 3));
+        assertTrue(new Updater(directory).delta(registry, pipeline));
+        assertEquals(1, registry.getVersion());
+
+        final double UNCHANGED = skipped("unchanged");
+        final double INVALID = skipped("invalid");
+        write("weapons.json", config("ace", "a", 1), config("ace", "b", 5), config("ace", "e", 6), "{\"class\":\"f\"}");
+        assertTrue(new Updater(directory).delta(registry, pipeline));
+        assertEquals(2, registry.getVersion());
+        assertEquals(1, registry.getPreviousVersion());
+        assertEquals(List.of("a", "b", "e"), classes("data.v2.ace"));
+        assertEquals(List.of(), classes("data.v2.rhs"));
+        assertTrue(store.isIndexed("data.v2.ace", "class"));
+        assertEquals(5, store.find("data.v2.ace", "class", "b").get(0).get("weight"));
+        assertEquals(1, store.find(CollectionRegistry.HASHES_COLLECTION, "version", 2L).size());
+        assertEquals(1, skipped("unchanged") - UNCHANGED);
+        assertEquals(1, skipped("invalid") - INVALID);
+
+        // The version the delta was applied to is kept as it was for rollback
+        assertEquals(List.of("a", "b"), classes("data.v1.ace"));
+        assertEquals(2, store.find("data.v1.ace", "class", "b").get(0).get("weight"));
+        registry.rollback();
+        assertEquals(List.of("c"), classes(registry.getCollections().get("rhs")));
+    }
+
+    @Test
+    void leavesTheLiveVersionInPlaceWhenADeltaFails() throws Exception {
+        final InMemoryCollectionStore FAILING = new InMemoryCollectionStore() {
+            @Override
+            public synchronized void replaceClasses(String collectionName, List<String> classNames, List<Document> configs) {
+                if (collectionName.endsWith(".rhs")) {
+                    throw new IllegalStateException("write failed");
+                }
+                super.replaceClasses(collectionName, classNames, configs);
+            }
+        };
+        final CollectionRegistry REGISTRY = new CollectionRegistry(FAILING);
+        write("weapons.json", config("ace", "a", 1), config("rhs", "c", 3));
+        assertTrue(new Updater(directory).update(REGISTRY, pipeline));
+
+        write("weapons.json", config("ace", "a", 2), config("rhs", "c", 4));
+        assertFalse(new Updater(directory).delta(REGISTRY, pipeline));
+        assertEquals(1, REGISTRY.getVersion());
+        assertEquals(List.of("data.v1.ace", "data.v1.rhs"), FAILING.listCollectionNames().stream().filter(name -> CollectionRegistry.versionOf(name) >= 0).collect(Collectors.toList()));
+        assertEquals(1, FAILING.find("data.v1.ace").get(0).get("weight"));
+    }
+}